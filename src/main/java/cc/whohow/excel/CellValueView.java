@@ -0,0 +1,109 @@
+package cc.whohow.excel;
+
+import org.apache.poi.ss.usermodel.CellType;
+
+/**
+ * 单元格值只读视图：公式取计算结果、日期格式数值转为文本，不修改单元格。
+ * 可复用，非线程安全，每个读取线程使用各自的实例。
+ */
+public class CellValueView {
+    private CellType cellType;
+    private String stringValue;
+    private double numericValue;
+    private boolean booleanValue;
+
+    /**
+     * 值类型：STRING、NUMERIC、BOOLEAN、BLANK、ERROR，单元格不存在返回null
+     */
+    public CellType getCellType() {
+        return cellType;
+    }
+
+    public String getStringValue() {
+        return stringValue;
+    }
+
+    public double getNumericValue() {
+        return numericValue;
+    }
+
+    public boolean getBooleanValue() {
+        return booleanValue;
+    }
+
+    public Object getValue() {
+        if (cellType == null) {
+            return null;
+        }
+        switch (cellType) {
+            case STRING: {
+                return stringValue;
+            }
+            case NUMERIC: {
+                return numericValue;
+            }
+            case BOOLEAN: {
+                return booleanValue;
+            }
+            default: {
+                return null;
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        if (cellType == null) {
+            return true;
+        }
+        switch (cellType) {
+            case NUMERIC:
+            case BOOLEAN: {
+                return false;
+            }
+            case STRING: {
+                return stringValue.isEmpty();
+            }
+            default: {
+                return true;
+            }
+        }
+    }
+
+    protected CellValueView clear() {
+        this.cellType = null;
+        this.stringValue = null;
+        return this;
+    }
+
+    protected CellValueView setBlank() {
+        clear();
+        this.cellType = CellType.BLANK;
+        return this;
+    }
+
+    protected CellValueView setError() {
+        clear();
+        this.cellType = CellType.ERROR;
+        return this;
+    }
+
+    protected CellValueView setString(String value) {
+        this.cellType = CellType.STRING;
+        this.stringValue = value;
+        return this;
+    }
+
+    protected CellValueView setNumeric(double value) {
+        clear();
+        this.cellType = CellType.NUMERIC;
+        this.numericValue = value;
+        return this;
+    }
+
+    protected CellValueView setBoolean(boolean value) {
+        clear();
+        this.cellType = CellType.BOOLEAN;
+        this.booleanValue = value;
+        return this;
+    }
+}
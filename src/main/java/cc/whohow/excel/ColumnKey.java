@@ -2,6 +2,9 @@ package cc.whohow.excel;
 
 import java.util.Objects;
 
+/**
+ * 列Key，视为不可变（setter仅为兼容保留）
+ */
 public class ColumnKey {
     private final String name;
     private String description;
@@ -29,6 +32,10 @@ public class ColumnKey {
         return description;
     }
 
+    /**
+     * @deprecated Key可能被缓存的Schema共享，修改会影响所有使用者，请构造新Key
+     */
+    @Deprecated
     public void setDescription(String description) {
         this.description = description;
     }
@@ -37,10 +44,21 @@ public class ColumnKey {
         return index;
     }
 
+    /**
+     * @deprecated Key可能被缓存的Schema共享，修改会影响所有使用者，请使用{@link #withIndex(int)}
+     */
+    @Deprecated
     public void setIndex(int index) {
         this.index = index;
     }
 
+    /**
+     * 指定列索引，返回新Key
+     */
+    public ColumnKey withIndex(int index) {
+        return index == this.index ? this : new ColumnKey(name, description, index);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -6,13 +6,15 @@ import org.apache.poi.ss.usermodel.*;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.CellReference;
 import org.apache.poi.ss.util.CellUtil;
-import org.apache.poi.ss.util.SheetUtil;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import java.text.DateFormat;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.BitSet;
 import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -23,8 +25,15 @@ public class Excel {
     protected final Workbook workbook;
     protected final Sheet sheet;
     protected final FormulaEvaluator formulaEvaluator;
+    protected final ExcelMergedRegions mergedRegions;
+    protected final boolean date1904;
     protected DateFormat dateFormat;
     protected NumberFormat numberFormat;
+    protected boolean evaluateFormula = false;
+    protected Map<Cell, CellValue> formulaValues;
+    // 按样式序号缓存是否为日期格式，避免逐个单元格匹配格式字符串；两个BitSet均由resolvedStyles加锁保护
+    protected final BitSet resolvedStyles = new BitSet();
+    protected final BitSet dateStyles = new BitSet();
 
     public Excel() {
         this(SpreadsheetVersion.EXCEL2007);
@@ -34,6 +43,8 @@ public class Excel {
         this.workbook = sheet.getWorkbook();
         this.sheet = sheet;
         this.formulaEvaluator = workbook.getCreationHelper().createFormulaEvaluator();
+        this.mergedRegions = new ExcelMergedRegions(sheet.getMergedRegions());
+        this.date1904 = isDate1904(workbook);
         this.dateFormat = new ISO8601VariantDateFormat();
         this.numberFormat = new DecimalFormat("#.#");
         this.numberFormat.setGroupingUsed(false);
@@ -49,6 +60,16 @@ public class Excel {
         this(version == SpreadsheetVersion.EXCEL97 ? new HSSFWorkbook() : new XSSFWorkbook());
     }
 
+    private static boolean isDate1904(Workbook workbook) {
+        if (workbook instanceof XSSFWorkbook) {
+            return ((XSSFWorkbook) workbook).isDate1904();
+        }
+        if (workbook instanceof HSSFWorkbook) {
+            return ((HSSFWorkbook) workbook).getInternalWorkbook().isUsing1904DateWindowing();
+        }
+        return false;
+    }
+
     public DateFormat getDateFormat() {
         return dateFormat;
     }
@@ -65,6 +86,17 @@ public class Excel {
         this.numberFormat = numberFormat;
     }
 
+    public boolean isEvaluateFormula() {
+        return evaluateFormula;
+    }
+
+    /**
+     * 是否计算公式：默认使用文件中保存的计算结果，开启后计算公式并按单元格缓存结果
+     */
+    public void setEvaluateFormula(boolean evaluateFormula) {
+        this.evaluateFormula = evaluateFormula;
+    }
+
     public CellRangeAddress getSheetRangeAddress() {
         return new CellRangeAddress(
                 sheet.getFirstRowNum(), sheet.getLastRowNum(),
@@ -139,6 +171,13 @@ public class Excel {
         return sheet;
     }
 
+    /**
+     * 合并单元格索引（创建时的快照）
+     */
+    public ExcelMergedRegions getMergedRegions() {
+        return mergedRegions;
+    }
+
     public Row getRow(int row) {
         return sheet.getRow(row);
     }
@@ -151,34 +190,200 @@ public class Excel {
         return row == null ? null : getCell(row.getRowNum(), column);
     }
 
+    /**
+     * 原始单元格（含合并区域），不修改单元格，值通过getCellValue读取。
+     * 旧版本返回经normalizeCellValue转换（公式替换为结果、日期转为文本）的单元格
+     */
     public Cell getCell(int row, int column) {
-        return normalizeCellValue(getCellWithMerges(row, column));
+        return getCellWithMerges(row, column);
     }
 
     public Cell getCellWithMerges(int row, int column) {
-        return SheetUtil.getCellWithMerges(sheet, row, column);
+        if (column < 0) {
+            return null;
+        }
+        Row r = getRow(row);
+        Cell cell = r == null ? null : r.getCell(column);
+        if (cell != null || mergedRegions.isEmpty()) {
+            return cell;
+        }
+        // 单元格不存在：取所在合并区域左上角单元格
+        CellRangeAddress mergedRegion = mergedRegions.getMergedRegion(row, column);
+        if (mergedRegion == null) {
+            return null;
+        }
+        r = getRow(mergedRegion.getFirstRow());
+        return r == null ? null : r.getCell(mergedRegion.getFirstColumn());
+    }
+
+    public CellValueView getCellValueView(int row, int column) {
+        return getCellValue(getCell(row, column), new CellValueView());
+    }
+
+    /**
+     * 读取单元格值到视图，不修改单元格：公式取计算结果，日期格式数值转为文本
+     */
+    public CellValueView getCellValue(Cell cell, CellValueView view) {
+        if (cell == null) {
+            return view.clear();
+        }
+        switch (cell.getCellTypeEnum()) {
+            case STRING: {
+                return view.setString(cell.getStringCellValue());
+            }
+            case NUMERIC: {
+                return setNumericValue(view, cell, cell.getNumericCellValue());
+            }
+            case BOOLEAN: {
+                return view.setBoolean(cell.getBooleanCellValue());
+            }
+            case FORMULA: {
+                return getFormulaValue(cell, view);
+            }
+            case ERROR: {
+                return view.setError();
+            }
+            default: {
+                return view.setBlank();
+            }
+        }
     }
 
+    /**
+     * 将公式替换为计算结果（始终计算）、日期格式数值转为文本，直接修改单元格
+     *
+     * @deprecated 读取时修改工作簿，多线程共享工作簿时不安全，请使用{@link #getCellValue(Cell, CellValueView)}
+     */
+    @Deprecated
     public Cell normalizeCellValue(Cell cell) {
         if (cell == null) {
             return null;
         }
+        CellValueView view = new CellValueView();
         if (cell.getCellTypeEnum() == CellType.FORMULA) {
-            CellValue cellValue = formulaEvaluator.evaluate(cell);
-            cell.setCellValue(cellValue.getNumberValue());
-            cell.setCellValue(cellValue.getBooleanValue());
-            cell.setCellValue(cellValue.getStringValue());
-            cell.setCellErrorValue(cellValue.getErrorValue());
-            cell.setCellType(cellValue.getCellTypeEnum());
-        }
-        if (cell.getCellTypeEnum() == CellType.NUMERIC &&
-                DateUtil.isCellDateFormatted(cell)) {
-            cell.setCellValue(format(cell.getDateCellValue()));
-            cell.setCellType(CellType.STRING);
+            CellValue cellValue = evaluate(cell);
+            setFormulaValue(view, cell, cellValue);
+            cell.setCellType(CellType.BLANK);
+            if (view.getCellType() == CellType.ERROR) {
+                cell.setCellErrorValue(cellValue.getErrorValue());
+            }
+        } else {
+            getCellValue(cell, view);
+        }
+        if (cell.getCellTypeEnum() == view.getCellType()) {
+            return cell;
+        }
+        switch (view.getCellType()) {
+            case STRING: {
+                cell.setCellValue(view.getStringValue());
+                break;
+            }
+            case NUMERIC: {
+                cell.setCellValue(view.getNumericValue());
+                break;
+            }
+            case BOOLEAN: {
+                cell.setCellValue(view.getBooleanValue());
+                break;
+            }
+            default: {
+                break;
+            }
         }
         return cell;
     }
 
+    protected CellValueView getFormulaValue(Cell cell, CellValueView view) {
+        if (!evaluateFormula) {
+            return getCachedFormulaValue(cell, view);
+        }
+        return setFormulaValue(view, cell, evaluate(cell));
+    }
+
+    protected CellValueView setFormulaValue(CellValueView view, Cell cell, CellValue cellValue) {
+        if (cellValue == null) {
+            return view.setBlank();
+        }
+        switch (cellValue.getCellTypeEnum()) {
+            case STRING: {
+                return view.setString(cellValue.getStringValue());
+            }
+            case NUMERIC: {
+                return setNumericValue(view, cell, cellValue.getNumberValue());
+            }
+            case BOOLEAN: {
+                return view.setBoolean(cellValue.getBooleanValue());
+            }
+            case ERROR: {
+                return view.setError();
+            }
+            default: {
+                return view.setBlank();
+            }
+        }
+    }
+
+    protected CellValueView getCachedFormulaValue(Cell cell, CellValueView view) {
+        // 文件中保存的公式计算结果
+        switch (cell.getCachedFormulaResultTypeEnum()) {
+            case STRING: {
+                return view.setString(cell.getStringCellValue());
+            }
+            case NUMERIC: {
+                return setNumericValue(view, cell, cell.getNumericCellValue());
+            }
+            case BOOLEAN: {
+                return view.setBoolean(cell.getBooleanCellValue());
+            }
+            case ERROR: {
+                return view.setError();
+            }
+            default: {
+                return view.setBlank();
+            }
+        }
+    }
+
+    protected CellValue evaluate(Cell cell) {
+        // FormulaEvaluator非线程安全，计算结果按单元格缓存
+        synchronized (formulaEvaluator) {
+            if (formulaValues == null) {
+                formulaValues = new IdentityHashMap<>();
+            }
+            return formulaValues.computeIfAbsent(cell, formulaEvaluator::evaluate);
+        }
+    }
+
+    protected CellValueView setNumericValue(CellValueView view, Cell cell, double numericValue) {
+        if (isDateFormatted(cell, numericValue)) {
+            return view.setString(format(DateUtil.getJavaDate(numericValue, date1904)));
+        }
+        return view.setNumeric(numericValue);
+    }
+
+    protected boolean isDateFormatted(Cell cell, double numericValue) {
+        if (!DateUtil.isValidExcelDate(numericValue)) {
+            return false;
+        }
+        CellStyle style = cell.getCellStyle();
+        if (style == null) {
+            return false;
+        }
+        int index = style.getIndex() & 0xFFFF;
+        // 多线程共享同一工作簿读取时，先计算结果再同时写入两个标记
+        synchronized (resolvedStyles) {
+            if (resolvedStyles.get(index)) {
+                return dateStyles.get(index);
+            }
+        }
+        boolean date = DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+        synchronized (resolvedStyles) {
+            dateStyles.set(index, date);
+            resolvedStyles.set(index);
+        }
+        return date;
+    }
+
     public Cell createCell(int row, int column) {
         return createCell(createRow(row), column);
     }
@@ -238,23 +443,7 @@ public class Excel {
     }
 
     public Object getCellValue(Cell cell) {
-        if (cell == null) {
-            return null;
-        }
-        switch (cell.getCellTypeEnum()) {
-            case STRING: {
-                return cell.getStringCellValue();
-            }
-            case NUMERIC: {
-                return cell.getNumericCellValue();
-            }
-            case BOOLEAN: {
-                return cell.getBooleanCellValue();
-            }
-            default: {
-                return null;
-            }
-        }
+        return getCellValue(cell, new CellValueView()).getValue();
     }
 
     public String formatCellValue(Cell cell) {
@@ -262,18 +451,22 @@ public class Excel {
     }
 
     public String formatCellValue(Cell cell, String defaultValue) {
-        if (cell == null) {
+        return formatCellValue(getCellValue(cell, new CellValueView()), defaultValue);
+    }
+
+    public String formatCellValue(CellValueView view, String defaultValue) {
+        if (view.getCellType() == null) {
             return defaultValue;
         }
-        switch (cell.getCellTypeEnum()) {
+        switch (view.getCellType()) {
             case STRING: {
-                return cell.getStringCellValue();
+                return view.getStringValue();
             }
             case NUMERIC: {
-                return format(cell.getNumericCellValue());
+                return format(view.getNumericValue());
             }
             case BOOLEAN: {
-                return format(cell.getBooleanCellValue());
+                return format(view.getBooleanValue());
             }
             default: {
                 return defaultValue;
@@ -286,7 +479,10 @@ public class Excel {
     }
 
     public String format(double numericValue) {
-        return numberFormat.format(numericValue);
+        // NumberFormat非线程安全
+        synchronized (numberFormat) {
+            return numberFormat.format(numericValue);
+        }
     }
 
     public String format(boolean booleanValue) {
@@ -294,21 +490,7 @@ public class Excel {
     }
 
     public boolean isEmptyCell(Cell cell) {
-        if (cell == null) {
-            return true;
-        }
-        switch (cell.getCellTypeEnum()) {
-            case NUMERIC:
-            case BOOLEAN: {
-                return false;
-            }
-            case STRING: {
-                return cell.getStringCellValue().isEmpty();
-            }
-            default: {
-                return true;
-            }
-        }
+        return cell == null || getCellValue(cell, new CellValueView()).isEmpty();
     }
 
     public boolean isEmptyRow(Row row) {
@@ -319,6 +501,7 @@ public class Excel {
         if (range == null) {
             return true;
         }
+        CellValueView view = new CellValueView();
         for (int r = range.getFirstRow(); r <= range.getLastRow(); r++) {
             Row row = getRow(r);
             if (row == null || row.getLastCellNum() < 0) {
@@ -327,7 +510,7 @@ public class Excel {
             int firstColumn = Integer.max(range.getFirstColumn(), row.getFirstCellNum());
             int lastColumn = Integer.min(range.getLastColumn(), row.getLastCellNum() - 1);
             for (int c = firstColumn; c <= lastColumn; c++) {
-                if (!isEmptyCell(getCell(row, c))) {
+                if (!getCellValue(getCell(row, c), view).isEmpty()) {
                     return false;
                 }
             }
@@ -335,74 +518,40 @@ public class Excel {
         return true;
     }
 
+    /**
+     * 区域占用索引，反映调用时的单元格内容
+     */
+    public ExcelOccupancy getOccupancy(CellRangeAddress range) {
+        return new ExcelOccupancy(this, range);
+    }
+
     public CellRangeAddress trim(CellRangeAddress range) {
-        return trimLeft(trimRight(trimTop(trimBottom(range))));
+        return range == null ? null : getOccupancy(range).trim(range);
     }
 
     public CellRangeAddress trimTop(CellRangeAddress range) {
-        if (range == null) {
-            return null;
-        }
-        int firstRow = range.getFirstRow();
-        while (firstRow < range.getLastRow()) {
-            if (isEmpty(new CellRangeAddress(firstRow, firstRow, range.getFirstColumn(), range.getLastColumn()))) {
-                firstRow++;
-            } else {
-                break;
-            }
-        }
-        return new CellRangeAddress(firstRow, range.getLastRow(), range.getFirstColumn(), range.getLastColumn());
+        return range == null ? null : getOccupancy(range).trimTop(range);
     }
 
     public CellRangeAddress trimBottom(CellRangeAddress range) {
-        if (range == null) {
-            return null;
-        }
-        int lastRow = range.getLastRow();
-        while (lastRow > range.getFirstRow()) {
-            if (isEmpty(new CellRangeAddress(lastRow, lastRow, range.getFirstColumn(), range.getLastColumn()))) {
-                lastRow--;
-            } else {
-                break;
-            }
-        }
-        return new CellRangeAddress(range.getFirstRow(), lastRow, range.getFirstColumn(), range.getLastColumn());
+        return range == null ? null : getOccupancy(range).trimBottom(range);
     }
 
     public CellRangeAddress trimLeft(CellRangeAddress range) {
-        if (range == null) {
-            return null;
-        }
-        int firstColumn = range.getFirstColumn();
-        while (firstColumn < range.getLastColumn()) {
-            if (isEmpty(new CellRangeAddress(range.getFirstRow(), range.getLastRow(), firstColumn, firstColumn))) {
-                firstColumn++;
-            } else {
-                break;
-            }
-        }
-        return new CellRangeAddress(range.getFirstRow(), range.getLastRow(), firstColumn, range.getLastColumn());
+        return range == null ? null : getOccupancy(range).trimLeft(range);
     }
 
     public CellRangeAddress trimRight(CellRangeAddress range) {
-        if (range == null) {
-            return null;
-        }
-        int lastColumn = range.getLastColumn();
-        while (lastColumn > range.getFirstColumn()) {
-            if (isEmpty(new CellRangeAddress(range.getFirstRow(), range.getLastRow(), lastColumn, lastColumn))) {
-                lastColumn--;
-            } else {
-                break;
-            }
-        }
-        return new CellRangeAddress(range.getFirstRow(), range.getLastRow(), range.getFirstColumn(), lastColumn);
+        return range == null ? null : getOccupancy(range).trimRight(range);
     }
 
     /**
      * 求交集，无交集返回null
      */
     public CellRangeAddress intersect(CellRangeAddress range1, CellRangeAddress range2) {
+        if (range1 == null || range2 == null) {
+            return null;
+        }
         int firstRow = Integer.max(range1.getFirstRow(), range2.getFirstRow());
         int lastRow = Integer.min(range1.getLastRow(), range2.getLastRow());
         if (firstRow > lastRow) {
@@ -0,0 +1,58 @@
+package cc.whohow.excel;
+
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.Workbook;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 单元格样式注册表：按（模板样式，数据格式）创建样式，同一工作簿中每种组合只创建一次。
+ * 样式数达到上限后不再创建，返回模板样式
+ */
+public class ExcelCellStyles {
+    protected final Workbook workbook;
+    protected final DataFormat dataFormat;
+    protected final int maxCellStyles;
+    protected final Map<Long, CellStyle> cellStyles = new HashMap<>();
+
+    public ExcelCellStyles(Workbook workbook) {
+        this.workbook = workbook;
+        this.dataFormat = workbook.createDataFormat();
+        this.maxCellStyles = workbook.getSpreadsheetVersion().getMaxCellStyles();
+    }
+
+    /**
+     * @param template   模板样式，null为默认样式
+     * @param dataFormat 数据格式，null使用模板样式
+     */
+    public CellStyle getCellStyle(CellStyle template, String dataFormat) {
+        if (dataFormat == null) {
+            return template;
+        }
+        if (template == null) {
+            template = workbook.getCellStyleAt(0);
+        }
+        short format = this.dataFormat.getFormat(dataFormat);
+        if (template.getDataFormat() == format) {
+            return template;
+        }
+        long key = ((long) (template.getIndex() & 0xFFFF) << 16) | (format & 0xFFFF);
+        CellStyle cellStyle = cellStyles.get(key);
+        if (cellStyle == null) {
+            if (workbook.getNumCellStyles() >= maxCellStyles) {
+                return template;
+            }
+            cellStyle = workbook.createCellStyle();
+            cellStyle.cloneStyleFrom(template);
+            cellStyle.setDataFormat(format);
+            cellStyles.put(key, cellStyle);
+        }
+        return cellStyle;
+    }
+
+    public int size() {
+        return cellStyles.size();
+    }
+}
@@ -0,0 +1,56 @@
+package cc.whohow.excel;
+
+import java.util.*;
+
+/**
+ * 按列统计字符串基数：每列采样前sampleSize个值，不同值占比超过maxDistinctRatio的列判定为高基数。
+ * 判定后释放采样数据，内存占用有上限
+ */
+public class ExcelColumnCardinality {
+    protected static final int DEFAULT_SAMPLE_SIZE = 1000;
+    protected static final double DEFAULT_MAX_DISTINCT_RATIO = 0.5;
+
+    protected final int sampleSize;
+    protected final double maxDistinctRatio;
+    protected List<Set<String>> samples = new ArrayList<>();
+    protected int[] counts = new int[0];
+    // 0：采样中，1：低基数，2：高基数
+    protected byte[] decisions = new byte[0];
+
+    public ExcelColumnCardinality() {
+        this(DEFAULT_SAMPLE_SIZE, DEFAULT_MAX_DISTINCT_RATIO);
+    }
+
+    public ExcelColumnCardinality(int sampleSize, double maxDistinctRatio) {
+        this.sampleSize = sampleSize;
+        this.maxDistinctRatio = maxDistinctRatio;
+    }
+
+    /**
+     * 记录值并返回该列是否为高基数，采样期间返回false
+     */
+    public boolean isHighCardinality(int column, String value) {
+        if (column >= decisions.length) {
+            int length = Integer.max(column + 1, decisions.length * 2);
+            counts = Arrays.copyOf(counts, length);
+            decisions = Arrays.copyOf(decisions, length);
+        }
+        if (decisions[column] != 0) {
+            return decisions[column] == 2;
+        }
+        while (samples.size() <= column) {
+            samples.add(null);
+        }
+        Set<String> sample = samples.get(column);
+        if (sample == null) {
+            sample = new HashSet<>();
+            samples.set(column, sample);
+        }
+        sample.add(value);
+        if (++counts[column] >= sampleSize) {
+            decisions[column] = sample.size() > sampleSize * maxDistinctRatio ? (byte) 2 : (byte) 1;
+            samples.set(column, null);
+        }
+        return false;
+    }
+}
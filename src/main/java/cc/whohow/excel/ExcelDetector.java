@@ -4,6 +4,7 @@ import org.apache.poi.ss.util.CellRangeAddress;
 
 import java.util.*;
 import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
 
 /**
  * Excel布局自动推测
@@ -11,15 +12,22 @@ import java.util.concurrent.Callable;
 public class ExcelDetector implements Callable<Boolean> {
     private static final List<ColumnKey> AUTO_KEYS = Collections.emptyList();
     private static final CellRangeAddress AUTO_RANGE = new CellRangeAddress(0, 0, 0, 0);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
     private Excel excel;
     private String headerSeparator;
+    private int probeRows;
+    private boolean normalizeHeader;
     private List<ColumnKey> keys;
     private CellRangeAddress headerRangeAddress;
     private CellRangeAddress bodyRangeAddress;
+    private Map<String, List<ColumnKey>> descriptionIndex;
+    private Map<String, List<ColumnKey>> nameIndex;
 
     public ExcelDetector(Excel excel) {
         this.excel = excel;
         this.headerSeparator = "\r\n";
+        this.probeRows = 100;
+        this.normalizeHeader = false;
         this.keys = AUTO_KEYS;
         this.headerRangeAddress = AUTO_RANGE;
         this.bodyRangeAddress = AUTO_RANGE;
@@ -32,6 +40,22 @@ public class ExcelDetector implements Callable<Boolean> {
         return this;
     }
 
+    /**
+     * 根据Keys推测Header时，最多探测的非空行数
+     */
+    public ExcelDetector withProbeRows(int probeRows) {
+        this.probeRows = probeRows;
+        return this;
+    }
+
+    /**
+     * Header匹配时忽略首尾空白、连续空白及大小写差异
+     */
+    public ExcelDetector withNormalizeHeader(boolean normalizeHeader) {
+        this.normalizeHeader = normalizeHeader;
+        return this;
+    }
+
     public ExcelDetector withHeaderRangeAddress(CellRangeAddress headerRangeAddress) {
         if (headerRangeAddress != null) {
             this.headerRangeAddress = headerRangeAddress;
@@ -66,6 +90,22 @@ public class ExcelDetector implements Callable<Boolean> {
         this.headerSeparator = headerSeparator;
     }
 
+    public int getProbeRows() {
+        return probeRows;
+    }
+
+    public void setProbeRows(int probeRows) {
+        this.probeRows = probeRows;
+    }
+
+    public boolean isNormalizeHeader() {
+        return normalizeHeader;
+    }
+
+    public void setNormalizeHeader(boolean normalizeHeader) {
+        this.normalizeHeader = normalizeHeader;
+    }
+
     public List<ColumnKey> getKeys() {
         return isAutoKeys() ? new ArrayList<>() : keys;
     }
@@ -128,29 +168,31 @@ public class ExcelDetector implements Callable<Boolean> {
     }
 
     protected void detectHeaderByKeys(CellRangeAddress sheetRangeAddress) {
-        // 根据Keys推测Header：逐行扫描，最匹配Keys的行作为Header
-        Map<String, Integer> keysIndex = Collections.emptyMap();
-        for (int r = sheetRangeAddress.getFirstRow(); r <= sheetRangeAddress.getLastRow(); r++) {
+        // 根据Keys推测Header：在前probeRows个非空行内扫描，最匹配Keys的行作为Header
+        indexKeys();
+        Map<String, Integer> matchKeysIndex = Collections.emptyMap();
+        int probed = 0;
+        for (int r = sheetRangeAddress.getFirstRow(); r <= sheetRangeAddress.getLastRow() && probed < probeRows; r++) {
             CellRangeAddress range = new CellRangeAddress(
                     r, r,
                     sheetRangeAddress.getFirstColumn(), sheetRangeAddress.getLastColumn());
+            if (excel.isEmpty(range)) {
+                continue;
+            }
+            probed++;
 
-            Map<String, Integer> matchKeysIndex = matchKeys(range);
-            if (matchKeysIndex.size() > keysIndex.size()) {
+            Map<String, Integer> rowMatchKeysIndex = matchKeys(range);
+            if (rowMatchKeysIndex.size() > matchKeysIndex.size()) {
                 headerRangeAddress = range;
-                keysIndex = matchKeysIndex;
-                if (matchKeysIndex.size() == keys.size()) {
+                matchKeysIndex = rowMatchKeysIndex;
+                if (rowMatchKeysIndex.size() == keys.size()) {
                     break;
                 }
             }
         }
-        if (acceptKeysIndex(keysIndex)) {
+        if (acceptKeysIndex(matchKeysIndex)) {
             // 采纳匹配结果，更新Keys
-            for (ColumnKey key : keys) {
-                if (key.getIndex() < 0) {
-                    key.setIndex(keysIndex.getOrDefault(key.getName(), -1));
-                }
-            }
+            keys = withIndex(keys, matchKeysIndex);
         } else {
             headerRangeAddress = AUTO_RANGE;
         }
@@ -160,30 +202,57 @@ public class ExcelDetector implements Callable<Boolean> {
         return !keysIndex.isEmpty();
     }
 
+    protected void indexKeys() {
+        // Header文本 -> Keys
+        descriptionIndex = new HashMap<>();
+        nameIndex = new HashMap<>();
+        for (ColumnKey key : keys) {
+            if (key.getIndex() >= 0) {
+                continue;
+            }
+            if (key.getDescription() != null) {
+                descriptionIndex.computeIfAbsent(normalize(key.getDescription()), k -> new ArrayList<>(1)).add(key);
+            }
+            if (key.getName() != null) {
+                nameIndex.computeIfAbsent(normalize(key.getName()), k -> new ArrayList<>(1)).add(key);
+            }
+        }
+    }
+
     protected Map<String, Integer> matchKeys(CellRangeAddress headerRangeAddress) {
-        // 行匹配Keys
+        // 行匹配Keys：逐列查表，description优先于name，同名取第一列
         List<String> headers = getHeaders(headerRangeAddress);
+        Map<ColumnKey, Integer> descriptionMatches = new IdentityHashMap<>();
+        Map<ColumnKey, Integer> nameMatches = new IdentityHashMap<>();
+        for (int i = 0; i < headers.size(); i++) {
+            String header = normalize(headers.get(i));
+            int column = headerRangeAddress.getFirstColumn() + i;
+            for (ColumnKey key : descriptionIndex.getOrDefault(header, Collections.emptyList())) {
+                descriptionMatches.putIfAbsent(key, column);
+            }
+            for (ColumnKey key : nameIndex.getOrDefault(header, Collections.emptyList())) {
+                nameMatches.putIfAbsent(key, column);
+            }
+        }
         Map<String, Integer> keyIndex = new HashMap<>();
         for (ColumnKey key : keys) {
             if (key.getIndex() >= 0) {
                 keyIndex.put(key.getName(), key.getIndex());
                 continue;
             }
-            int index = matchKey(key, headers);
-            if (index >= 0) {
-                keyIndex.putIfAbsent(key.getName(), headerRangeAddress.getFirstColumn() + index);
+            Integer column = descriptionMatches.getOrDefault(key, nameMatches.get(key));
+            if (column != null) {
+                keyIndex.putIfAbsent(key.getName(), column);
             }
         }
         return keyIndex;
     }
 
-    protected int matchKey(ColumnKey key, List<String> header) {
-        // 列匹配Key
-        int index = header.indexOf(key.getDescription());
-        if (index < 0) {
-            index = header.indexOf(key.getName());
+    protected String normalize(String header) {
+        if (header == null || !normalizeHeader) {
+            return header;
         }
-        return index;
+        return WHITESPACE.matcher(header.trim()).replaceAll(" ").toLowerCase();
     }
 
     protected void detectHeaderByBody(CellRangeAddress sheetRangeAddress) {
@@ -225,12 +294,21 @@ public class ExcelDetector implements Callable<Boolean> {
 
     protected void updateKeysByHeader() {
         // 根据Header更新Keys索引
-        List<String> headers = getHeaders(headerRangeAddress);
+        indexKeys();
+        keys = withIndex(keys, matchKeys(headerRangeAddress));
+    }
+
+    protected List<ColumnKey> withIndex(List<ColumnKey> keys, Map<String, Integer> keyIndex) {
+        // 不修改传入的Keys，生成带索引的新Keys
+        List<ColumnKey> indexedKeys = new ArrayList<>(keys.size());
         for (ColumnKey key : keys) {
             if (key.getIndex() < 0) {
-                key.setIndex(matchKey(key, headers));
+                indexedKeys.add(key.withIndex(keyIndex.getOrDefault(key.getName(), -1)));
+            } else {
+                indexedKeys.add(key);
             }
         }
+        return indexedKeys;
     }
 
     protected List<String> getHeaders(CellRangeAddress headerRangeAddress) {
@@ -0,0 +1,23 @@
+package cc.whohow.excel;
+
+/**
+ * Excel读取/生成引擎
+ */
+public enum ExcelEngine {
+    /**
+     * 根据工作簿估算大小自动选择（生成时同USER_MODEL）
+     */
+    AUTO,
+    /**
+     * POI usermodel：完整加载工作簿，支持合并单元格、公式计算
+     */
+    USER_MODEL,
+    /**
+     * 流式读取/生成：逐行处理物理行，内存占用与行数无关
+     */
+    STREAMING,
+    /**
+     * 直接生成OOXML（XLSX），不经过POI对象模型、不使用临时文件，仅用于生成
+     */
+    NATIVE,
+}
@@ -0,0 +1,171 @@
+package cc.whohow.excel;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * 按需导出：读取时才序列化后续数据，每次生成batchRows行，不预先生成整个文件，也不占用额外线程。
+ * 仅支持NATIVE引擎（内部缓冲写满后即输出压缩数据）；其余引擎需在全部数据写完后才能输出，不支持。
+ * 可通过writeTo写入非阻塞通道，通道写满时返回，由调用方在通道可写时继续（背压）。
+ * 未读完即关闭视为取消，丢弃已生成的内容
+ */
+public class ExcelExportChannel implements ReadableByteChannel {
+    protected static final int DEFAULT_BATCH_ROWS = 256;
+
+    protected final ExcelNativeGenerator generator;
+    protected final ObjectWriter writer;
+    protected final Iterator<?> values;
+    protected final ChunkBuffer buffer = new ChunkBuffer();
+    protected int batchRows = DEFAULT_BATCH_ROWS;
+    protected ByteBuffer pending;
+    protected boolean finished;
+    protected boolean closed;
+
+    /**
+     * @param writer 元素类型的ObjectWriter，写入引擎须为NATIVE
+     * @param schema 元素类型的Schema
+     */
+    public ExcelExportChannel(ObjectWriter writer, ExcelSchema schema, Iterator<?> values) throws IOException {
+        JsonGenerator generator = writer.getFactory().createGenerator(buffer);
+        if (!(generator instanceof ExcelNativeGenerator)) {
+            throw new IllegalArgumentException("ExcelExportChannel requires write engine " + ExcelEngine.NATIVE +
+                    ", got " + (generator instanceof ExcelGenerator ? ((ExcelGenerator) generator).getEngine() : generator));
+        }
+        this.writer = writer.without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.values = values;
+        this.generator = (ExcelNativeGenerator) generator;
+        this.generator.setSchema(schema);
+        this.generator.writeStartArray();
+    }
+
+    public ExcelExportChannel withBatchRows(int batchRows) {
+        this.batchRows = batchRows;
+        return this;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+        while (buffer.size() == 0 && !finished) {
+            produce();
+        }
+        if (buffer.size() == 0) {
+            return -1;
+        }
+        return buffer.drainTo(dst);
+    }
+
+    /**
+     * 尽可能写出，全部写出后返回true；非阻塞通道写满时返回false
+     */
+    public boolean writeTo(WritableByteChannel channel) throws IOException {
+        if (pending == null) {
+            pending = ByteBuffer.allocate(8192);
+            pending.flip();
+        }
+        while (true) {
+            if (!pending.hasRemaining()) {
+                pending.clear();
+                int n = read(pending);
+                pending.flip();
+                if (n < 0) {
+                    return true;
+                }
+            }
+            channel.write(pending);
+            if (pending.hasRemaining()) {
+                return false;
+            }
+        }
+    }
+
+    protected void produce() throws IOException {
+        if (values.hasNext()) {
+            for (int i = 0; i < batchRows && values.hasNext(); i++) {
+                writer.writeValue(generator, values.next());
+            }
+        } else {
+            generator.writeEndArray();
+            generator.close();
+            finished = true;
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // 正常结束时生成器已关闭，否则为取消，丢弃而不写出剩余部分
+        generator.discard();
+    }
+
+    /**
+     * 可复用的字节缓冲，读取后清空
+     */
+    protected static class ChunkBuffer extends OutputStream {
+        protected byte[] bytes = new byte[8192];
+        protected int position;
+        protected int limit;
+
+        public int size() {
+            return limit - position;
+        }
+
+        @Override
+        public void write(int b) {
+            ensureCapacity(1);
+            bytes[limit++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            ensureCapacity(len);
+            System.arraycopy(b, off, bytes, limit, len);
+            limit += len;
+        }
+
+        public int drainTo(ByteBuffer dst) {
+            int n = Integer.min(dst.remaining(), size());
+            dst.put(bytes, position, n);
+            position += n;
+            if (position == limit) {
+                position = 0;
+                limit = 0;
+            }
+            return n;
+        }
+
+        protected void ensureCapacity(int n) {
+            if (limit + n <= bytes.length) {
+                return;
+            }
+            if (position > 0) {
+                System.arraycopy(bytes, position, bytes, 0, limit - position);
+                limit -= position;
+                position = 0;
+            }
+            if (limit + n > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Integer.max(limit + n, bytes.length * 2));
+            }
+        }
+    }
+}
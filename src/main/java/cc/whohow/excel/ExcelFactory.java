@@ -2,15 +2,41 @@ package cc.whohow.excel;
 
 import com.fasterxml.jackson.core.*;
 import com.fasterxml.jackson.core.io.IOContext;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.poifs.filesystem.DocumentEntry;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.util.TempFile;
 
 import java.io.*;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 public class ExcelFactory extends JsonFactory {
     protected static final String INVALID_FORMAT = "InvalidFormat";
     protected static final int DEFAULT_EXCEL_PARSER_FEATURE_FLAGS = 0;
     protected static final int DEFAULT_EXCEL_GENERATOR_FEATURE_FLAGS = 0;
 
+    // 默认流式读取阈值（解压后大小）
+    protected static final long DEFAULT_XSSF_STREAMING_THRESHOLD = 16L * 1024 * 1024;
+    protected static final long DEFAULT_HSSF_STREAMING_THRESHOLD = 32L * 1024 * 1024;
+    private static final Pattern XSSF_SHEET = Pattern.compile("xl/worksheets/[^/]+\\.xml");
+    private static final String XSSF_SHARED_STRINGS = "xl/sharedStrings.xml";
+
+    protected ExcelEngine readEngine = ExcelEngine.AUTO;
+    protected long xssfStreamingThreshold = DEFAULT_XSSF_STREAMING_THRESHOLD;
+    protected long hssfStreamingThreshold = DEFAULT_HSSF_STREAMING_THRESHOLD;
+    protected ExcelEngine writeEngine = ExcelEngine.USER_MODEL;
+    protected int writeRowWindow = ExcelStreamingGenerator.DEFAULT_ROW_WINDOW;
+
     public ExcelFactory() {
         super();
     }
@@ -21,6 +47,196 @@ public class ExcelFactory extends JsonFactory {
 
     protected ExcelFactory(JsonFactory src, ObjectCodec codec) {
         super(src, codec);
+        if (src instanceof ExcelFactory) {
+            ExcelFactory excelFactory = (ExcelFactory) src;
+            this.readEngine = excelFactory.readEngine;
+            this.xssfStreamingThreshold = excelFactory.xssfStreamingThreshold;
+            this.hssfStreamingThreshold = excelFactory.hssfStreamingThreshold;
+            this.writeEngine = excelFactory.writeEngine;
+            this.writeRowWindow = excelFactory.writeRowWindow;
+        }
+    }
+
+    @Override
+    public ExcelFactory copy() {
+        _checkInvalidCopy(ExcelFactory.class);
+        return new ExcelFactory(this, null);
+    }
+
+    public ExcelEngine getReadEngine() {
+        return readEngine;
+    }
+
+    public ExcelFactory setReadEngine(ExcelEngine readEngine) {
+        this.readEngine = readEngine;
+        return this;
+    }
+
+    public long getXSSFStreamingThreshold() {
+        return xssfStreamingThreshold;
+    }
+
+    /**
+     * XLSX自动选择流式读取的阈值：最大Sheet与sharedStrings解压后大小之和
+     */
+    public ExcelFactory setXSSFStreamingThreshold(long xssfStreamingThreshold) {
+        this.xssfStreamingThreshold = xssfStreamingThreshold;
+        return this;
+    }
+
+    public long getHSSFStreamingThreshold() {
+        return hssfStreamingThreshold;
+    }
+
+    /**
+     * XLS自动选择流式读取的阈值：BIFF Workbook流大小
+     */
+    public ExcelFactory setHSSFStreamingThreshold(long hssfStreamingThreshold) {
+        this.hssfStreamingThreshold = hssfStreamingThreshold;
+        return this;
+    }
+
+    public ExcelEngine getWriteEngine() {
+        return writeEngine;
+    }
+
+    /**
+     * 生成引擎：STREAMING基于SXSSF，内存中只保留writeRowWindow行，仅支持XLSX；
+     * NATIVE直接生成XLSX，适合无模板的大批量导出，不支持XLS及模板，样式仅支持按类型的数据格式
+     */
+    public ExcelFactory setWriteEngine(ExcelEngine writeEngine) {
+        this.writeEngine = writeEngine;
+        return this;
+    }
+
+    public int getWriteRowWindow() {
+        return writeRowWindow;
+    }
+
+    /**
+     * 流式生成时内存中保留的行数
+     */
+    public ExcelFactory setWriteRowWindow(int writeRowWindow) {
+        this.writeRowWindow = writeRowWindow;
+        return this;
+    }
+
+    /**
+     * 根据工作簿估算大小选择读取引擎
+     */
+    public ExcelEngine detectReadEngine(File file) throws IOException {
+        switch (getFileMagic(file)) {
+            case OOXML: {
+                return estimateXSSFSize(file) > xssfStreamingThreshold ? ExcelEngine.STREAMING : ExcelEngine.USER_MODEL;
+            }
+            case OLE2: {
+                return estimateHSSFSize(file) > hssfStreamingThreshold ? ExcelEngine.STREAMING : ExcelEngine.USER_MODEL;
+            }
+            default: {
+                return ExcelEngine.USER_MODEL;
+            }
+        }
+    }
+
+    /**
+     * 根据内存中工作簿的估算大小选择读取引擎，不落地为文件
+     */
+    public ExcelEngine detectReadEngine(byte[] data, int offset, int len) throws IOException {
+        switch (FileMagic.valueOf(new ByteArrayInputStream(data, offset, len))) {
+            case OOXML: {
+                return estimateXSSFSize(data, offset, len) > xssfStreamingThreshold ? ExcelEngine.STREAMING : ExcelEngine.USER_MODEL;
+            }
+            case OLE2: {
+                // Workbook流未压缩，以文件大小估算
+                return len > hssfStreamingThreshold ? ExcelEngine.STREAMING : ExcelEngine.USER_MODEL;
+            }
+            default: {
+                return ExcelEngine.USER_MODEL;
+            }
+        }
+    }
+
+    /**
+     * 读取ZIP中央目录中的解压后大小，不解压条目；格式异常时返回-1
+     */
+    protected long estimateXSSFSize(byte[] data, int offset, int len) {
+        // End of central directory：22字节，之后最多65535字节注释
+        int end = -1;
+        for (int i = offset + len - 22; i >= Integer.max(offset, offset + len - 22 - 0xFFFF); i--) {
+            if (readInt(data, i) == 0x06054b50) {
+                end = i;
+                break;
+            }
+        }
+        if (end < 0) {
+            return -1;
+        }
+        int entries = readShort(data, end + 10);
+        // 中央目录中的偏移及长度不可信，按long计算并逐项检查边界
+        long limit = (long) offset + len;
+        long position = offset + (readInt(data, end + 16) & 0xFFFFFFFFL);
+        long sheetSize = 0;
+        long sharedStringsSize = 0;
+        for (int i = 0; i < entries; i++) {
+            if (position + 46 > limit || readInt(data, (int) position) != 0x02014b50) {
+                return -1;
+            }
+            int header = (int) position;
+            long size = readInt(data, header + 24) & 0xFFFFFFFFL;
+            int nameLength = readShort(data, header + 28);
+            if (position + 46 + nameLength > limit) {
+                return -1;
+            }
+            String name = new String(data, header + 46, nameLength, StandardCharsets.UTF_8);
+            if (XSSF_SHARED_STRINGS.equals(name)) {
+                sharedStringsSize = size;
+            } else if (XSSF_SHEET.matcher(name).matches()) {
+                sheetSize = Long.max(sheetSize, size);
+            }
+            position += 46 + nameLength + readShort(data, header + 30) + readShort(data, header + 32);
+        }
+        return sheetSize + sharedStringsSize;
+    }
+
+    private static int readShort(byte[] data, int i) {
+        return (data[i] & 0xFF) | (data[i + 1] & 0xFF) << 8;
+    }
+
+    private static int readInt(byte[] data, int i) {
+        return readShort(data, i) | readShort(data, i + 2) << 16;
+    }
+
+    protected long estimateXSSFSize(File file) throws IOException {
+        long sheetSize = 0;
+        long sharedStringsSize = 0;
+        try (ZipFile zip = new ZipFile(file)) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (XSSF_SHARED_STRINGS.equals(entry.getName())) {
+                    sharedStringsSize = entry.getSize();
+                } else if (XSSF_SHEET.matcher(entry.getName()).matches()) {
+                    sheetSize = Long.max(sheetSize, entry.getSize());
+                }
+            }
+        }
+        return sheetSize + sharedStringsSize;
+    }
+
+    protected long estimateHSSFSize(File file) throws IOException {
+        try (NPOIFSFileSystem fs = new NPOIFSFileSystem(file, true)) {
+            DirectoryNode root = fs.getRoot();
+            return ((DocumentEntry) root.getEntry(HSSFWorkbook.getWorkbookDirEntryName(root))).getSize();
+        } catch (IllegalArgumentException e) {
+            // 非Workbook（如加密的XLSX），交由usermodel处理
+            return -1;
+        }
+    }
+
+    protected static FileMagic getFileMagic(File file) throws IOException {
+        try (InputStream stream = FileMagic.prepareToCheckMagic(new FileInputStream(file))) {
+            return FileMagic.valueOf(stream);
+        }
     }
 
     @Override
@@ -45,11 +261,18 @@ public class ExcelFactory extends JsonFactory {
 
     @Override
     public ExcelParser createParser(File f) throws IOException, JsonParseException {
-        return createParser(new FileInputStream(f));
+        // 直接基于文件打开，不再复制到内存
+        return _createParser(f, false, null);
     }
 
     @Override
     public ExcelParser createParser(URL url) throws IOException, JsonParseException {
+        if ("file".equals(url.getProtocol())) {
+            try {
+                return createParser(new File(url.toURI()));
+            } catch (URISyntaxException | IllegalArgumentException ignore) {
+            }
+        }
         return createParser(_optimizedStreamFromURL(url));
     }
 
@@ -70,7 +293,7 @@ public class ExcelFactory extends JsonFactory {
 
     @Override
     public ExcelParser createParser(byte[] data, int offset, int len) throws IOException, JsonParseException {
-        return createParser(new ByteArrayInputStream(data, offset, len));
+        return _createParser(data, offset, len, null);
     }
 
     @Override
@@ -125,7 +348,35 @@ public class ExcelFactory extends JsonFactory {
 
     @Override
     protected ExcelParser _createParser(InputStream in, IOContext ioContext) throws IOException {
-        return new ExcelParser(ioContext, _parserFeatures, DEFAULT_EXCEL_PARSER_FEATURE_FLAGS, _objectCodec, in);
+        // POI基于流打开时会在内存中再解压/缓冲一份，且自动选择引擎需检查容器，落地为临时文件后基于文件打开
+        File file = TempFile.createTempFile("excel-", ".tmp");
+        try (InputStream stream = in) {
+            Files.copy(stream, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(file.toPath());
+            throw e;
+        }
+        return _createParser(file, true, ioContext);
+    }
+
+    protected ExcelParser _createParser(File file, boolean deleteFileOnClose, IOContext ioContext) throws IOException {
+        try {
+            return _createParser(file, deleteFileOnClose, ioContext,
+                    readEngine == ExcelEngine.AUTO ? detectReadEngine(file) : readEngine);
+        } catch (IOException | RuntimeException e) {
+            // 检测失败（如损坏的ZIP/OLE2），解析器未创建，由此处删除临时文件
+            if (deleteFileOnClose) {
+                Files.deleteIfExists(file.toPath());
+            }
+            throw e;
+        }
+    }
+
+    protected ExcelParser _createParser(File file, boolean deleteFileOnClose, IOContext ioContext, ExcelEngine engine) {
+        if (engine == ExcelEngine.STREAMING) {
+            return new ExcelStreamingParser(ioContext, _parserFeatures, DEFAULT_EXCEL_PARSER_FEATURE_FLAGS, _objectCodec, file, deleteFileOnClose);
+        }
+        return new ExcelParser(ioContext, _parserFeatures, DEFAULT_EXCEL_PARSER_FEATURE_FLAGS, _objectCodec, file, deleteFileOnClose);
     }
 
     @Override
@@ -140,7 +391,21 @@ public class ExcelFactory extends JsonFactory {
 
     @Override
     protected ExcelParser _createParser(byte[] data, int offset, int len, IOContext ioContext) throws IOException {
-        return _createParser(new ByteArrayInputStream(data, offset, len), ioContext);
+        ExcelEngine engine = readEngine == ExcelEngine.AUTO ? detectReadEngine(data, offset, len) : readEngine;
+        if (engine != ExcelEngine.STREAMING) {
+            // 数据已在内存中，usermodel直接读取，不落地
+            return new ExcelParser(ioContext, _parserFeatures, DEFAULT_EXCEL_PARSER_FEATURE_FLAGS, _objectCodec,
+                    new ByteArrayInputStream(data, offset, len));
+        }
+        // 流式读取基于文件打开，落地为临时文件
+        File file = TempFile.createTempFile("excel-", ".tmp");
+        try (OutputStream stream = new FileOutputStream(file)) {
+            stream.write(data, offset, len);
+        } catch (IOException e) {
+            Files.deleteIfExists(file.toPath());
+            throw e;
+        }
+        return _createParser(file, true, ioContext, engine);
     }
 
     @Override
@@ -155,6 +420,14 @@ public class ExcelFactory extends JsonFactory {
 
     @Override
     protected ExcelGenerator _createUTF8Generator(OutputStream out, IOContext ioContext) throws IOException {
+        if (writeEngine == ExcelEngine.STREAMING) {
+            ExcelStreamingGenerator generator = new ExcelStreamingGenerator(_generatorFeatures, DEFAULT_EXCEL_GENERATOR_FEATURE_FLAGS, _objectCodec, out);
+            generator.setRowWindow(writeRowWindow);
+            return generator;
+        }
+        if (writeEngine == ExcelEngine.NATIVE) {
+            return new ExcelNativeGenerator(_generatorFeatures, DEFAULT_EXCEL_GENERATOR_FEATURE_FLAGS, _objectCodec, out);
+        }
         return new ExcelGenerator(_generatorFeatures, DEFAULT_EXCEL_GENERATOR_FEATURE_FLAGS, _objectCodec, out);
     }
 }
@@ -3,38 +3,67 @@ package cc.whohow.excel;
 import com.fasterxml.jackson.core.Base64Variant;
 import com.fasterxml.jackson.core.FormatSchema;
 import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.SerializableString;
 import com.fasterxml.jackson.core.base.GeneratorBase;
 import com.fasterxml.jackson.core.json.JsonWriteContext;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
 import org.apache.poi.ss.usermodel.CellStyle;
 import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellUtil;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.usermodel.XSSFCell;
+import org.apache.poi.xssf.usermodel.XSSFRichTextString;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTCell;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.STCellType;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 
 public class ExcelGenerator extends GeneratorBase {
+    protected static final int MAX_SHEET_NAME_LENGTH = 31;
+
     // generator props
     protected OutputStream stream;
     protected Workbook template;
     protected Excel excel;
     protected ExcelSchema schema;
+    protected ResolvedLayout layout;
     protected CellRangeAddress headerRangeAddress;
     protected CellRangeAddress bodyRangeAddress;
+    protected String sheetName;
 
     // generator state
     protected int currentRowIndex;
-    protected String currentKeyName;
+    protected ColumnKey currentColumnKey;
     protected Row currentRow;
+    protected boolean currentRowCreated;
+    // 当前单元格是否为新建（默认样式）
+    protected boolean currentCellCreated;
+    protected int sheetCount = 1;
+    protected List<Sheet> headerSheets = new ArrayList<>();
     protected boolean flushed;
     protected Map<String, ColumnKey> keys = new HashMap<>();
+    protected int lastColumnIndex = -1;
+    // 列计划：按字段在行内的序号缓存字段名及列，字段顺序不变时无需哈希查找
+    protected String[] columnPlanNames = new String[16];
+    protected ColumnKey[] columnPlan = new ColumnKey[16];
+    protected int currentField;
     protected Map<Integer, CellStyle> templateCellStyles = new HashMap<>();
+    protected ExcelCellStyles cellStyles;
+    protected ExcelStringEncoding stringEncoding;
+    protected ExcelColumnCardinality columnCardinality = new ExcelColumnCardinality();
+    protected CellStyle[][] columnCellStyles = new CellStyle[CellType.values().length][0];
 
     public ExcelGenerator(int features,
                           int excelFeatures,
@@ -44,6 +73,10 @@ public class ExcelGenerator extends GeneratorBase {
         this.stream = stream;
     }
 
+    public ExcelEngine getEngine() {
+        return ExcelEngine.USER_MODEL;
+    }
+
     @Override
     @SuppressWarnings("all")
     public void setSchema(FormatSchema schema) {
@@ -60,26 +93,21 @@ public class ExcelGenerator extends GeneratorBase {
         if (schema == null) {
             schema = new ExcelSchema();
         }
-        if (template == null) {
-            excel = new Excel(schema.getVersion());
-        } else {
-            if (schema.getSheetName() != null) {
-                excel = new Excel(template.getSheet(schema.getSheetName()));
-            } else if (0 <= schema.getSheetIndex() && schema.getSheetIndex() < template.getNumberOfSheets()) {
-                excel = new Excel(template.getSheetAt(schema.getSheetIndex()));
-            } else if (template.getActiveSheetIndex() < template.getNumberOfSheets()) {
-                excel = new Excel(template.getSheetAt(template.getActiveSheetIndex()));
-            } else {
-                excel = new Excel(template.createSheet());
-            }
-        }
-        schema.detect(excel);
+        excel = createExcel();
+        layout = resolveLayout();
 
-        headerRangeAddress = excel.getCellRangeAddress(schema.getHeaderRangeAddress());
-        bodyRangeAddress = excel.getCellRangeAddress(schema.getBodyRangeAddress());
-        for (ColumnKey key : schema.getKeys()) {
+        headerRangeAddress = layout.getHeaderRangeAddress();
+        bodyRangeAddress = layout.getBodyRangeAddress();
+        for (ColumnKey key : layout.getKeys()) {
             keys.put(key.getName(), key);
+            lastColumnIndex = Integer.max(lastColumnIndex, key.getIndex());
+        }
+        initTemplateCellStyles();
+        if (excel != null) {
+            sheetName = excel.getSheet().getSheetName();
+            headerSheets.add(excel.getSheet());
         }
+        stringEncoding = resolveStringEncoding(schema.getStringEncoding());
 
         setCurrentRow(-1);
         setCurrentKey(null);
@@ -87,6 +115,63 @@ public class ExcelGenerator extends GeneratorBase {
         _writeContext = JsonWriteContext.createRootContext(null);
     }
 
+    protected Excel createExcel() {
+        if (template == null) {
+            if (schema.getSheetName() == null) {
+                return new Excel(schema.getVersion());
+            }
+            Workbook workbook = schema.getVersion() == SpreadsheetVersion.EXCEL97 ? new HSSFWorkbook() : new XSSFWorkbook();
+            return new Excel(workbook.createSheet(WorkbookUtil.createSafeSheetName(schema.getSheetName())));
+        }
+        if (schema.getSheetName() != null) {
+            return new Excel(template.getSheet(schema.getSheetName()));
+        } else if (0 <= schema.getSheetIndex() && schema.getSheetIndex() < template.getNumberOfSheets()) {
+            return new Excel(template.getSheetAt(schema.getSheetIndex()));
+        } else if (template.getActiveSheetIndex() < template.getNumberOfSheets()) {
+            return new Excel(template.getSheetAt(template.getActiveSheetIndex()));
+        } else {
+            return new Excel(template.createSheet());
+        }
+    }
+
+    protected ResolvedLayout resolveLayout() {
+        if (excel.getSheet().getPhysicalNumberOfRows() == 0 &&
+                schema.getHeaderRangeAddress() == null && schema.getBodyRangeAddress() == null) {
+            // 空白Sheet：第一行为Header，其后为Body，Keys依次排列
+            return getDefaultLayout();
+        }
+        return schema.detect(excel);
+    }
+
+    protected ResolvedLayout getDefaultLayout() {
+        Set<Integer> indexes = new HashSet<>();
+        for (ColumnKey key : schema.getKeys()) {
+            indexes.add(key.getIndex());
+        }
+        List<ColumnKey> defaultKeys = new ArrayList<>(schema.getKeys().size());
+        int index = 0;
+        int lastColumn = 0;
+        for (ColumnKey key : schema.getKeys()) {
+            if (key.getIndex() < 0) {
+                while (indexes.contains(index)) {
+                    index++;
+                }
+                key = key.withIndex(index++);
+            }
+            defaultKeys.add(key);
+            lastColumn = Integer.max(lastColumn, key.getIndex());
+        }
+        int lastRow = getSpreadsheetVersion().getLastRowIndex();
+        return new ResolvedLayout(
+                new CellRangeAddress(0, 0, 0, lastColumn),
+                new CellRangeAddress(1, lastRow, 0, lastColumn),
+                defaultKeys);
+    }
+
+    protected SpreadsheetVersion getSpreadsheetVersion() {
+        return excel.getWorkbook().getSpreadsheetVersion();
+    }
+
     @Override
     public void writeStartArray() throws IOException {
         initialize();
@@ -98,33 +183,93 @@ public class ExcelGenerator extends GeneratorBase {
         writeHeader();
     }
 
-    protected void writeHeader() {
+    protected void writeHeader() throws IOException {
+        for (Sheet sheet : headerSheets) {
+            writeHeader(sheet);
+        }
+    }
+
+    protected void writeHeader(Sheet sheet) {
         if (headerRangeAddress == null) {
             return;
         }
 
-        Row row = excel.createRow(headerRangeAddress.getLastRow());
+        Row row = CellUtil.getRow(headerRangeAddress.getLastRow(), sheet);
         for (ColumnKey key : keys.values()) {
-            if (key.getIndex() < 0) {
-                continue;
-            }
-            Cell cell = excel.createCell(row, key.getIndex());
-            if (!excel.isEmptyCell(cell)) {
-                continue;
-            }
-            String value = key.getDescription();
-            if (value == null || value.isEmpty()) {
-                value = key.getName();
-            }
-            cell.setCellValue(value);
+            writeHeader(row, key);
         }
     }
 
+    protected void writeHeader(Row row, ColumnKey key) {
+        if (key.getIndex() < 0) {
+            return;
+        }
+        Cell cell = excel.createCell(row, key.getIndex());
+        if (!excel.isEmptyCell(cell)) {
+            return;
+        }
+        String value = key.getDescription();
+        if (value == null || value.isEmpty()) {
+            value = key.getName();
+        }
+        cell.setCellValue(value);
+    }
+
     @Override
     public void writeStartObject() throws IOException {
+        currentField = 0;
+        checkRowLimit();
         createRow();
     }
 
+    /**
+     * Sheet最后一行（含）
+     */
+    protected int getLastRowIndex() {
+        int maxRows = getSpreadsheetVersion().getMaxRows();
+        if (schema.getMaxRowsPerSheet() > 0) {
+            maxRows = Integer.min(maxRows, schema.getMaxRowsPerSheet());
+        }
+        return maxRows - 1;
+    }
+
+    protected void checkRowLimit() throws IOException {
+        if (getCurrentRow() <= getLastRowIndex()) {
+            return;
+        }
+        if (!schema.isRollover()) {
+            _reportError("Too many rows for sheet '" + sheetName + "', max rows: " + (getLastRowIndex() + 1));
+        }
+        rollover(nextSheetName());
+        currentRow = null;
+        setCurrentRow(bodyRangeAddress.getFirstRow());
+    }
+
+    /**
+     * 新建Sheet继续写入，并写入Header
+     */
+    protected void rollover(String name) throws IOException {
+        Sheet sheet = excel.getWorkbook().createSheet(name);
+        headerSheets.add(sheet);
+        excel = new Excel(sheet);
+    }
+
+    /**
+     * 第一个Sheet名称加序号，截断前缀使其不超过31个字符
+     */
+    protected String nextSheetName() {
+        String name;
+        do {
+            String suffix = " (" + (++sheetCount) + ")";
+            String prefix = sheetName;
+            if (prefix.length() + suffix.length() > MAX_SHEET_NAME_LENGTH) {
+                prefix = prefix.substring(0, MAX_SHEET_NAME_LENGTH - suffix.length());
+            }
+            name = prefix + suffix;
+        } while (excel != null && excel.getWorkbook().getSheet(name) != null);
+        return name;
+    }
+
     @Override
     public void writeEndObject() throws IOException {
         setCurrentRow(getCurrentRow() + 1);
@@ -133,7 +278,13 @@ public class ExcelGenerator extends GeneratorBase {
     @Override
     public void writeFieldName(String name) throws IOException {
         _writeContext.writeFieldName(name);
-        setCurrentKey(name);
+        currentColumnKey = getPlannedColumnKey(name);
+    }
+
+    @Override
+    public void writeFieldName(SerializableString name) throws IOException {
+        // Bean属性名每行为同一实例，getValue()返回同一String，按序号命中列计划
+        writeFieldName(name.getValue());
     }
 
     @Override
@@ -145,8 +296,8 @@ public class ExcelGenerator extends GeneratorBase {
         if (cell == null) {
             return;
         }
-        cell.setCellValue(text);
-        cell.setCellStyle(getTemplateCellStyle(cell));
+        setStringCellValue(cell, text);
+        setCellStyle(cell, CellType.STRING);
     }
 
     @Override
@@ -174,10 +325,10 @@ public class ExcelGenerator extends GeneratorBase {
             return;
         }
         if (cell.getStringCellValue() == null) {
-            cell.setCellValue(text);
-            cell.setCellStyle(getTemplateCellStyle(cell));
+            setStringCellValue(cell, text);
+            setCellStyle(cell, CellType.STRING);
         } else {
-            cell.setCellValue(cell.getStringCellValue() + text);
+            setStringCellValue(cell, cell.getStringCellValue() + text);
         }
     }
 
@@ -191,11 +342,11 @@ public class ExcelGenerator extends GeneratorBase {
             return;
         }
         if (cell.getStringCellValue() == null) {
-            cell.setCellValue(text.substring(offset, len));
-            cell.setCellStyle(getTemplateCellStyle(cell));
+            setStringCellValue(cell, text.substring(offset, len));
+            setCellStyle(cell, CellType.STRING);
         } else {
             String cellValue = cell.getStringCellValue();
-            cell.setCellValue(new StringBuilder(cellValue.length() + len)
+            setStringCellValue(cell, new StringBuilder(cellValue.length() + len)
                     .append(cellValue)
                     .append(text, offset, len)
                     .toString());
@@ -227,8 +378,8 @@ public class ExcelGenerator extends GeneratorBase {
         if (cell == null) {
             return;
         }
-        cell.setCellValue(base64);
-        cell.setCellStyle(getTemplateCellStyle(cell));
+        setStringCellValue(cell, base64);
+        setCellStyle(cell, CellType.STRING);
     }
 
     @Override
@@ -250,8 +401,8 @@ public class ExcelGenerator extends GeneratorBase {
         if (cell == null) {
             return;
         }
-        cell.setCellValue(v.toString());
-        cell.setCellStyle(getTemplateCellStyle(cell));
+        setStringCellValue(cell, v.toString());
+        setCellStyle(cell, CellType.STRING);
     }
 
     @Override
@@ -265,7 +416,7 @@ public class ExcelGenerator extends GeneratorBase {
             return;
         }
         cell.setCellValue(v);
-        cell.setCellStyle(getTemplateCellStyle(cell));
+        setCellStyle(cell, CellType.NUMERIC);
     }
 
     @Override
@@ -282,8 +433,8 @@ public class ExcelGenerator extends GeneratorBase {
         if (cell == null) {
             return;
         }
-        cell.setCellValue(_asString(v));
-        cell.setCellStyle(getTemplateCellStyle(cell));
+        setStringCellValue(cell, _asString(v));
+        setCellStyle(cell, CellType.STRING);
     }
 
     @Override
@@ -296,8 +447,8 @@ public class ExcelGenerator extends GeneratorBase {
         if (cell == null) {
             return;
         }
-        cell.setCellValue(encodedValue);
-        cell.setCellStyle(getTemplateCellStyle(cell));
+        setStringCellValue(cell, encodedValue);
+        setCellStyle(cell, CellType.STRING);
     }
 
     @Override
@@ -310,7 +461,7 @@ public class ExcelGenerator extends GeneratorBase {
             return;
         }
         cell.setCellValue(state);
-        cell.setCellStyle(getTemplateCellStyle(cell));
+        setCellStyle(cell, CellType.BOOLEAN);
     }
 
     @Override
@@ -322,7 +473,7 @@ public class ExcelGenerator extends GeneratorBase {
         if (cell == null) {
             return;
         }
-        cell.setCellStyle(getTemplateCellStyle(cell));
+        setCellStyle(cell, CellType.BLANK);
     }
 
     @Override
@@ -342,12 +493,23 @@ public class ExcelGenerator extends GeneratorBase {
     public void close() throws IOException {
         try {
             flush();
-            stream.close();
+            closeTarget();
         } finally {
             super.close();
         }
     }
 
+    /**
+     * 关闭输出流，AUTO_CLOSE_TARGET关闭时只flush
+     */
+    protected void closeTarget() throws IOException {
+        if (isEnabled(Feature.AUTO_CLOSE_TARGET)) {
+            stream.close();
+        } else {
+            stream.flush();
+        }
+    }
+
     @Override
     protected void _releaseBuffers() {
     }
@@ -356,12 +518,98 @@ public class ExcelGenerator extends GeneratorBase {
     protected void _verifyValueWrite(String typeMsg) throws IOException {
     }
 
-    protected CellStyle getTemplateCellStyle(Cell cell) {
-        return templateCellStyles.computeIfAbsent(cell.getColumnIndex(), this::getTemplateCellStyle);
+    protected void initTemplateCellStyles() {
+        // Body第一行的单元格样式作为模板，写入前记录，不依赖该行之后是否仍在内存中
+        Row row = excel.getRow(bodyRangeAddress.getFirstRow());
+        if (row == null) {
+            return;
+        }
+        for (Cell cell : row) {
+            templateCellStyles.put(cell.getColumnIndex(), cell.getCellStyle());
+        }
     }
 
     protected CellStyle getTemplateCellStyle(int column) {
-        return excel.createCell(bodyRangeAddress.getFirstRow(), column).getCellStyle();
+        return templateCellStyles.get(column);
+    }
+
+    /**
+     * 列样式：模板样式叠加Schema中该类型的数据格式，按列、类型缓存
+     */
+    protected CellStyle getCellStyle(int column, CellType type) {
+        CellStyle[] styles = columnCellStyles[type.ordinal()];
+        if (column < styles.length && styles[column] != null) {
+            return styles[column];
+        }
+        CellStyle cellStyle = getTemplateCellStyle(column);
+        String dataFormat = schema.getDataFormat(type);
+        if (dataFormat != null) {
+            if (cellStyles == null) {
+                cellStyles = new ExcelCellStyles(excel.getWorkbook());
+            }
+            cellStyle = cellStyles.getCellStyle(cellStyle, dataFormat);
+        }
+        if (cellStyle != null) {
+            if (column >= styles.length) {
+                styles = Arrays.copyOf(styles, Integer.max(column + 1, styles.length * 2));
+                columnCellStyles[type.ordinal()] = styles;
+            }
+            styles[column] = cellStyle;
+        }
+        return cellStyle;
+    }
+
+    protected void setCellStyle(Cell cell, CellType type) {
+        CellStyle cellStyle = getCellStyle(cell.getColumnIndex(), type);
+        if (cellStyle == null) {
+            return;
+        }
+        // 新建单元格为默认样式，样式不变时不重复设置
+        short index = currentCellCreated ? 0 : cell.getCellStyle().getIndex();
+        if (index != cellStyle.getIndex()) {
+            cell.setCellStyle(cellStyle);
+        }
+    }
+
+    protected ExcelStringEncoding resolveStringEncoding(ExcelStringEncoding stringEncoding) {
+        return stringEncoding == ExcelStringEncoding.AUTO ? ExcelStringEncoding.SHARED : stringEncoding;
+    }
+
+    protected boolean isInlineString(int column, String text) {
+        switch (stringEncoding) {
+            case INLINE: {
+                return true;
+            }
+            case ADAPTIVE: {
+                return columnCardinality.isHighCardinality(column, text);
+            }
+            default: {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 写入字符串，XSSF按编码方式写为内联字符串，不进入共享字符串表
+     */
+    protected void setStringCellValue(Cell cell, String text) {
+        if (cell instanceof XSSFCell && isInlineString(cell.getColumnIndex(), text)) {
+            if (text.length() > SpreadsheetVersion.EXCEL2007.getMaxTextLength()) {
+                throw new IllegalArgumentException("The maximum length of cell contents (text) is " +
+                        SpreadsheetVersion.EXCEL2007.getMaxTextLength() + " characters");
+            }
+            CTCell ctCell = ((XSSFCell) cell).getCTCell();
+            if (ctCell.isSetF()) {
+                ctCell.unsetF();
+            }
+            if (ctCell.isSetV()) {
+                ctCell.unsetV();
+            }
+            ctCell.setT(STCellType.INLINE_STR);
+            ctCell.setIs(new XSSFRichTextString(text).getCTRst());
+        } else {
+            cell.setCellValue(text);
+        }
     }
 
     protected ColumnKey getColumnKey(String name) {
@@ -369,11 +617,28 @@ public class ExcelGenerator extends GeneratorBase {
     }
 
     protected ColumnKey addColumnKey(String name) {
-        int index = keys.values().stream()
-                .mapToInt(ColumnKey::getIndex)
-                .max()
-                .orElse(-1);
-        return new ColumnKey(name, name, index + 1);
+        return new ColumnKey(name, name, ++lastColumnIndex);
+    }
+
+    /**
+     * 按字段在行内的序号查找列计划，字段名不一致时回退到按名查找并更新计划
+     */
+    protected ColumnKey getPlannedColumnKey(String name) {
+        int field = currentField++;
+        if (field < columnPlan.length) {
+            String plannedName = columnPlanNames[field];
+            if (plannedName == name || (plannedName != null && plannedName.equals(name))) {
+                return columnPlan[field];
+            }
+        } else {
+            int length = Integer.max(field + 1, columnPlan.length * 2);
+            columnPlanNames = Arrays.copyOf(columnPlanNames, length);
+            columnPlan = Arrays.copyOf(columnPlan, length);
+        }
+        ColumnKey key = getColumnKey(name);
+        columnPlanNames[field] = name;
+        columnPlan[field] = key;
+        return key;
     }
 
     protected int getCurrentRow() {
@@ -385,17 +650,21 @@ public class ExcelGenerator extends GeneratorBase {
     }
 
     protected void setCurrentKey(String name) {
-        this.currentKeyName = name;
+        this.currentColumnKey = name == null ? null : getColumnKey(name);
     }
 
     protected ColumnKey getCurrentColumnKey() {
-        return getColumnKey(currentKeyName);
+        return currentColumnKey;
     }
 
     protected Row createRow() {
         if (currentRow == null || currentRow.getRowNum() != currentRowIndex) {
             if (currentRowIndex >= 0) {
-                currentRow = excel.createRow(currentRowIndex);
+                currentRow = excel.getRow(currentRowIndex);
+                currentRowCreated = currentRow == null;
+                if (currentRowCreated) {
+                    currentRow = excel.getSheet().createRow(currentRowIndex);
+                }
             }
         }
         return currentRow;
@@ -410,6 +679,12 @@ public class ExcelGenerator extends GeneratorBase {
         if (row == null) {
             return null;
         }
+        // 新建的行没有模板单元格，超出行内已有单元格的列直接创建；
+        // 已有单元格（如同一行重复写入同一列）须复用，createCell会替换原单元格
+        currentCellCreated = currentRowCreated && key.getIndex() >= row.getLastCellNum();
+        if (currentCellCreated) {
+            return row.createCell(key.getIndex());
+        }
         return excel.createCell(row, key.getIndex());
     }
 }
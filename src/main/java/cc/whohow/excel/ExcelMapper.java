@@ -6,14 +6,28 @@ import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.PrettyPrinter;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
 import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.introspect.ClassIntrospector;
+import com.fasterxml.jackson.databind.util.LRUMap;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Type;
-import java.util.TimeZone;
+import java.util.*;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class ExcelMapper extends ObjectMapper {
+    protected static final int MAX_CACHED_SCHEMAS = 256;
+
+    // Schema缓存：按JavaType区分读写，配置变化后失效
+    protected final LRUMap<JavaType, CachedSchema> readerSchemas = new LRUMap<>(16, MAX_CACHED_SCHEMAS);
+    protected final LRUMap<JavaType, CachedSchema> writerSchemas = new LRUMap<>(16, MAX_CACHED_SCHEMAS);
+
     public ExcelMapper() {
         this(new ExcelFactory());
     }
@@ -39,6 +53,35 @@ public class ExcelMapper extends ObjectMapper {
         return (ExcelFactory) _jsonFactory;
     }
 
+    @Override
+    public ObjectMapper setMixIns(Map<Class<?>, Class<?>> sourceMixins) {
+        super.setMixIns(sourceMixins);
+        clearSchemaCache();
+        return this;
+    }
+
+    @Override
+    public ObjectMapper addMixIn(Class<?> target, Class<?> mixinSource) {
+        super.addMixIn(target, mixinSource);
+        clearSchemaCache();
+        return this;
+    }
+
+    @Override
+    public ObjectMapper setMixInResolver(ClassIntrospector.MixInResolver resolver) {
+        super.setMixInResolver(resolver);
+        clearSchemaCache();
+        return this;
+    }
+
+    /**
+     * 清空Schema缓存。序列化/反序列化配置变化时缓存自动失效，MixIn变化时自动清空
+     */
+    public void clearSchemaCache() {
+        readerSchemas.clear();
+        writerSchemas.clear();
+    }
+
     @Override
     protected JsonToken _initForReading(JsonParser p, JavaType targetType) throws IOException {
         if (p.getSchema() == null) {
@@ -50,7 +93,7 @@ public class ExcelMapper extends ObjectMapper {
     @Override
     protected ObjectReader _newReader(DeserializationConfig config, JavaType valueType, Object valueToUpdate, FormatSchema schema, InjectableValues injectableValues) {
         if (schema == null) {
-            schema = schemaFor(valueType, config::introspect);
+            schema = schemaForReader(config, valueType);
         }
         return super._newReader(config, valueType, valueToUpdate, schema, injectableValues);
     }
@@ -58,31 +101,111 @@ public class ExcelMapper extends ObjectMapper {
     @Override
     protected ObjectWriter _newWriter(SerializationConfig config, JavaType rootType, PrettyPrinter pp) {
         return super._newWriter(config, rootType, pp)
-                .with(schemaFor(rootType, config::introspect));
+                .with(schemaForWriter(config, rootType));
+    }
+
+    /**
+     * 分片导出，type为元素类型
+     */
+    public ExcelShardedWriter shardedWriterFor(Class<?> type) {
+        return shardedWriterFor(getTypeFactory().constructType(type));
+    }
+
+    public ExcelShardedWriter shardedWriterFor(JavaType type) {
+        return new ExcelShardedWriter(writerFor(type));
+    }
+
+    /**
+     * 按需导出，读取时才序列化后续数据，type为元素类型；写入引擎须为NATIVE
+     */
+    public ExcelExportChannel exportChannel(Iterator<?> values, Class<?> type) throws IOException {
+        return exportChannel(values, getTypeFactory().constructType(type));
+    }
+
+    public ExcelExportChannel exportChannel(Iterator<?> values, JavaType type) throws IOException {
+        return new ExcelExportChannel(writerFor(type), schemaForWriter(type), values);
+    }
+
+    /**
+     * 按需读取，消费下一个元素时才解析下一行；读取完毕或关闭Stream时释放工作簿
+     */
+    public <T> Stream<T> readValuesAsStream(File src, Class<T> type) throws IOException {
+        return readValuesAsStream(readerFor(type).readValues(src));
+    }
+
+    public <T> Stream<T> readValuesAsStream(InputStream src, Class<T> type) throws IOException {
+        return readValuesAsStream(readerFor(type).readValues(src));
+    }
+
+    public <T> Stream<T> readValuesAsStream(byte[] src, Class<T> type) throws IOException {
+        return readValuesAsStream(readerFor(type).readValues(src));
+    }
+
+    public <T> Stream<T> readValuesAsStream(File src, JavaType type) throws IOException {
+        return readValuesAsStream(readerFor(type).readValues(src));
+    }
+
+    public <T> Stream<T> readValuesAsStream(InputStream src, JavaType type) throws IOException {
+        return readValuesAsStream(readerFor(type).readValues(src));
+    }
+
+    protected <T> Stream<T> readValuesAsStream(MappingIterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                .onClose(() -> {
+                    try {
+                        iterator.close();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
     }
 
     public ExcelSchema schemaForReader(Type type) {
-        return schemaFor(getTypeFactory().constructType(type), getDeserializationConfig()::introspect);
+        return schemaForReader(getTypeFactory().constructType(type));
     }
 
     public ExcelSchema schemaForReader(TypeReference<?> type) {
-        return schemaFor(getTypeFactory().constructType(type), getDeserializationConfig()::introspect);
+        return schemaForReader(getTypeFactory().constructType(type));
     }
 
     public ExcelSchema schemaForReader(JavaType type) {
-        return schemaFor(type, getDeserializationConfig()::introspect);
+        return schemaForReader(getDeserializationConfig(), type);
     }
 
     public ExcelSchema schemaForWriter(Type type) {
-        return schemaFor(getTypeFactory().constructType(type), getSerializationConfig()::introspect);
+        return schemaForWriter(getTypeFactory().constructType(type));
     }
 
     public ExcelSchema schemaForWriter(TypeReference<?> type) {
-        return schemaFor(getTypeFactory().constructType(type), getSerializationConfig()::introspect);
+        return schemaForWriter(getTypeFactory().constructType(type));
     }
 
     public ExcelSchema schemaForWriter(JavaType type) {
-        return schemaFor(type, getSerializationConfig()::introspect);
+        return schemaForWriter(getSerializationConfig(), type);
+    }
+
+    protected ExcelSchema schemaForReader(DeserializationConfig config, JavaType type) {
+        return cachedSchemaFor(readerSchemas, config, type, config::introspect);
+    }
+
+    protected ExcelSchema schemaForWriter(SerializationConfig config, JavaType type) {
+        return cachedSchemaFor(writerSchemas, config, type, config::introspect);
+    }
+
+    protected ExcelSchema cachedSchemaFor(LRUMap<JavaType, CachedSchema> cache,
+                                          MapperConfig<?> config,
+                                          JavaType type,
+                                          Function<JavaType, ? extends BeanDescription> introspect) {
+        if (type == null) {
+            return new ExcelSchema();
+        }
+        // 配置对象不可变，配置变化时会替换为新对象
+        CachedSchema cached = cache.get(type);
+        if (cached == null || cached.config != config) {
+            cached = new CachedSchema(config, schemaFor(type, introspect));
+            cache.put(type, cached);
+        }
+        return cached.schema;
     }
 
     public ExcelSchema schemaFor(JavaType type, Function<JavaType, ? extends BeanDescription> introspect) {
@@ -97,15 +220,25 @@ public class ExcelMapper extends ObjectMapper {
     }
 
     public ExcelSchema schemaFor(BeanDescription beanDescription) {
-        ExcelSchema schema = new ExcelSchema();
-        schema.withSheet(beanDescription.findClassDescription());
+        ExcelSchema schema = new ExcelSchema()
+                .withSheet(beanDescription.findClassDescription());
 
         for (BeanPropertyDefinition prop : beanDescription.findProperties()) {
             String name = prop.getName();
             String description = prop.getMetadata().getDescription();
             Integer index = prop.getMetadata().getIndex();
-            schema.addKey(name, description == null ? name : description, index == null ? -1 : index);
+            schema = schema.addKey(name, description == null ? name : description, index == null ? -1 : index);
         }
         return schema;
     }
+
+    protected static class CachedSchema {
+        protected final MapperConfig<?> config;
+        protected final ExcelSchema schema;
+
+        protected CachedSchema(MapperConfig<?> config, ExcelSchema schema) {
+            this.config = config;
+            this.schema = schema;
+        }
+    }
 }
@@ -0,0 +1,119 @@
+package cc.whohow.excel;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * 合并单元格索引：逐行保存按起始列排序的合并区域，二分查找
+ */
+public class ExcelMergedRegions {
+    private static final CellRangeAddress[] EMPTY = new CellRangeAddress[0];
+    private static final Comparator<CellRangeAddress> FIRST_COLUMN = Comparator.comparingInt(CellRangeAddress::getFirstColumn);
+
+    private final int size;
+    private final int firstRow;
+    private final CellRangeAddress[][] rows;
+    // 不小于该行的第一个存在合并区域的行
+    private final int[] nextRows;
+
+    public ExcelMergedRegions(Collection<CellRangeAddress> mergedRegions) {
+        this.size = mergedRegions.size();
+        if (mergedRegions.isEmpty()) {
+            this.firstRow = 0;
+            this.rows = new CellRangeAddress[0][];
+            this.nextRows = new int[0];
+            return;
+        }
+        int firstRow = Integer.MAX_VALUE;
+        int lastRow = Integer.MIN_VALUE;
+        for (CellRangeAddress mergedRegion : mergedRegions) {
+            firstRow = Integer.min(firstRow, mergedRegion.getFirstRow());
+            lastRow = Integer.max(lastRow, mergedRegion.getLastRow());
+        }
+        // 统计每行区域数，再填充
+        int[] counts = new int[lastRow - firstRow + 1];
+        for (CellRangeAddress mergedRegion : mergedRegions) {
+            for (int r = mergedRegion.getFirstRow(); r <= mergedRegion.getLastRow(); r++) {
+                counts[r - firstRow]++;
+            }
+        }
+        CellRangeAddress[][] rows = new CellRangeAddress[counts.length][];
+        for (CellRangeAddress mergedRegion : mergedRegions) {
+            for (int r = mergedRegion.getFirstRow(); r <= mergedRegion.getLastRow(); r++) {
+                int i = r - firstRow;
+                if (rows[i] == null) {
+                    rows[i] = new CellRangeAddress[counts[i]];
+                }
+                rows[i][rows[i].length - counts[i]--] = mergedRegion;
+            }
+        }
+        for (CellRangeAddress[] row : rows) {
+            if (row != null && row.length > 1) {
+                Arrays.sort(row, FIRST_COLUMN);
+            }
+        }
+        int[] nextRows = new int[rows.length];
+        for (int i = rows.length - 1; i >= 0; i--) {
+            nextRows[i] = rows[i] != null ? firstRow + i : nextRows[i + 1];
+        }
+        this.firstRow = firstRow;
+        this.rows = rows;
+        this.nextRows = nextRows;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 行内的合并区域，按起始列排序
+     */
+    public CellRangeAddress[] getMergedRegions(int row) {
+        int i = row - firstRow;
+        if (i < 0 || i >= rows.length || rows[i] == null) {
+            return EMPTY;
+        }
+        return rows[i];
+    }
+
+    /**
+     * 不小于row的第一个存在合并区域的行，不存在返回-1
+     */
+    public int nextRow(int row) {
+        int i = Integer.max(row - firstRow, 0);
+        return i < nextRows.length ? nextRows[i] : -1;
+    }
+
+    /**
+     * 查找包含单元格的合并区域，不存在返回null
+     */
+    public CellRangeAddress getMergedRegion(int row, int column) {
+        int i = row - firstRow;
+        if (i < 0 || i >= rows.length || rows[i] == null) {
+            return null;
+        }
+        CellRangeAddress[] regions = rows[i];
+        // 合并区域互不重叠：找到起始列不大于column的最后一个区域
+        int low = 0;
+        int high = regions.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (regions[mid].getFirstColumn() <= column) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (high >= 0 && column <= regions[high].getLastColumn()) {
+            return regions[high];
+        }
+        return null;
+    }
+}
@@ -0,0 +1,713 @@
+package cc.whohow.excel;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.FormatSchema;
+import com.fasterxml.jackson.core.ObjectCodec;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.ss.util.WorkbookUtil;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * 直接生成OOXML（XLSX）：Sheet逐行写入ZipOutputStream，不经过POI对象模型，不使用临时文件，
+ * 只缓存当前行。字符串默认使用内联字符串（inlineStr），可选共享字符串表（生成期间常驻内存）。
+ * 样式仅支持Schema中按类型指定的数据格式；不支持XLS（EXCEL97）及模板，指定时抛出IllegalArgumentException。
+ * Header在第一行数据写出前写入，之后出现的动态Key没有Header。
+ */
+public class ExcelNativeGenerator extends ExcelGenerator {
+    protected static final int CELL_NONE = 0;
+    protected static final int CELL_STRING = 1;
+    protected static final int CELL_NUMBER = 2;
+    protected static final int CELL_BOOLEAN = 3;
+    protected static final int CELL_ERROR = 4;
+    protected static final int CELL_BLANK = 5;
+    // 各单元格类型对应的CellType（错误值与数值一致），用于查找Schema中的数据格式
+    protected static final CellType[] CELL_TYPES = {
+            null, CellType.STRING, CellType.NUMERIC, CellType.BOOLEAN, CellType.NUMERIC, CellType.BLANK};
+    // 自定义数字格式的起始ID，之前为内置格式
+    protected static final int FIRST_CUSTOM_FORMAT = 164;
+
+    protected static final String SHARED_STRINGS_ENTRY = "xl/sharedStrings.xml";
+    protected static final String XML_DECLARATION = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>\n";
+    protected static final String NS_MAIN = "http://schemas.openxmlformats.org/spreadsheetml/2006/main";
+    protected static final String NS_RELATIONSHIPS = "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+    protected static final String NS_PACKAGE_RELATIONSHIPS = "http://schemas.openxmlformats.org/package/2006/relationships";
+    protected static final String CONTENT_TYPE_PREFIX = "application/vnd.openxmlformats-officedocument.spreadsheetml.";
+
+    // generator props
+    protected int compressionLevel = Deflater.BEST_SPEED;
+
+    // generator state
+    protected ZipOutputStream zip;
+    protected Writer writer;
+    protected List<String> sheetNames = new ArrayList<>();
+    protected boolean headerWritten;
+    protected boolean finished;
+    protected String[] columnNames = new String[0];
+    // 当前行缓存，按列索引存放，跨行复用
+    protected int[] cellTypes = new int[16];
+    protected String[] cellValues = new String[16];
+    protected int[] rowColumns = new int[16];
+    protected int rowSize;
+    // 增量共享字符串表
+    protected Map<String, Integer> sharedStringIndexes = new HashMap<>();
+    protected List<String> sharedStrings = new ArrayList<>();
+    protected int sharedStringCount;
+    // 各单元格类型的样式（cellXfs索引），0为默认样式
+    protected int[] cellStyleIndexes = new int[CELL_TYPES.length];
+    // cellXfs中默认样式之后各样式的数据格式
+    protected List<String> dataFormats = new ArrayList<>();
+
+    public ExcelNativeGenerator(int features,
+                                int excelFeatures,
+                                ObjectCodec codec,
+                                OutputStream stream) {
+        super(features, excelFeatures, codec, stream);
+    }
+
+    @Override
+    public ExcelEngine getEngine() {
+        return ExcelEngine.NATIVE;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    /**
+     * Zip压缩级别，默认优先速度
+     */
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * 只支持XLSX，设置Schema时即检查版本
+     */
+    @Override
+    public void setSchema(FormatSchema schema) {
+        if (schema instanceof ExcelSchema && ((ExcelSchema) schema).getVersion() != SpreadsheetVersion.EXCEL2007) {
+            throw new IllegalArgumentException("NATIVE engine only supports " + SpreadsheetVersion.EXCEL2007 +
+                    ", got " + ((ExcelSchema) schema).getVersion());
+        }
+        super.setSchema(schema);
+    }
+
+    @Override
+    protected void initialize() throws IOException {
+        super.initialize();
+        if (template != null) {
+            throw new IllegalArgumentException("NATIVE engine does not support templates");
+        }
+        sheetName = schema.getSheetName() == null ? "Sheet1" : WorkbookUtil.createSafeSheetName(schema.getSheetName());
+        initCellStyles();
+
+        // 关闭zip释放Deflater，底层输出流是否关闭由AUTO_CLOSE_TARGET决定
+        zip = new ZipOutputStream(new FilterOutputStream(stream) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                ExcelNativeGenerator.super.closeTarget();
+            }
+        }, StandardCharsets.UTF_8);
+        zip.setLevel(compressionLevel);
+        writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 64 * 1024);
+        startSheet(sheetName);
+    }
+
+    /**
+     * 按Schema中各类型的数据格式分配样式，相同格式共用一个样式
+     */
+    protected void initCellStyles() {
+        for (int type = CELL_STRING; type < CELL_TYPES.length; type++) {
+            String dataFormat = schema.getDataFormat(CELL_TYPES[type]);
+            if (dataFormat == null) {
+                continue;
+            }
+            int index = dataFormats.indexOf(dataFormat);
+            if (index < 0) {
+                index = dataFormats.size();
+                dataFormats.add(dataFormat);
+            }
+            cellStyleIndexes[type] = index + 1;
+        }
+    }
+
+    protected static String getSheetEntry(int sheet) {
+        return "xl/worksheets/sheet" + sheet + ".xml";
+    }
+
+    protected void startSheet(String name) throws IOException {
+        sheetNames.add(name);
+        zip.putNextEntry(new ZipEntry(getSheetEntry(sheetNames.size())));
+        writer.write(XML_DECLARATION);
+        writer.write("<worksheet xmlns=\"" + NS_MAIN + "\">" +
+                "<sheetViews><sheetView workbookViewId=\"0\"/></sheetViews><sheetData>");
+    }
+
+    protected void endSheet() throws IOException {
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    /**
+     * 结束当前Sheet，新Sheet立即写入Header
+     */
+    @Override
+    protected void rollover(String name) throws IOException {
+        if (!headerWritten) {
+            writeHeader();
+        }
+        endSheet();
+        startSheet(name);
+        writeHeader();
+    }
+
+    /**
+     * 不创建POI工作簿，excel始终为null
+     */
+    @Override
+    protected Excel createExcel() {
+        return null;
+    }
+
+    @Override
+    protected ResolvedLayout resolveLayout() {
+        ResolvedLayout layout = getDefaultLayout();
+        if (schema.getHeaderRangeAddress() == null && schema.getBodyRangeAddress() == null) {
+            return layout;
+        }
+        CellRangeAddress header = schema.getHeaderRangeAddress() == null ? null :
+                CellRangeAddress.valueOf(schema.getHeaderRangeAddress());
+        CellRangeAddress body = schema.getBodyRangeAddress() == null ?
+                new CellRangeAddress(header.getLastRow() + 1, getSpreadsheetVersion().getLastRowIndex(),
+                        header.getFirstColumn(), header.getLastColumn()) :
+                CellRangeAddress.valueOf(schema.getBodyRangeAddress());
+        return new ResolvedLayout(header, body, layout.getKeys());
+    }
+
+    @Override
+    protected ExcelStringEncoding resolveStringEncoding(ExcelStringEncoding stringEncoding) {
+        return stringEncoding == ExcelStringEncoding.AUTO ? ExcelStringEncoding.INLINE : stringEncoding;
+    }
+
+    @Override
+    protected SpreadsheetVersion getSpreadsheetVersion() {
+        return SpreadsheetVersion.EXCEL2007;
+    }
+
+    @Override
+    protected void initTemplateCellStyles() {
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        finish();
+    }
+
+    @Override
+    public void writeStartObject() throws IOException {
+        currentField = 0;
+        rowSize = 0;
+        checkRowLimit();
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        if (!headerWritten) {
+            writeHeader();
+        }
+        writeRow(getCurrentRow());
+        setCurrentRow(getCurrentRow() + 1);
+    }
+
+    /**
+     * 直接写出Header行，不经过行缓存（此时缓存中可能为第一行数据）
+     */
+    @Override
+    protected void writeHeader() throws IOException {
+        headerWritten = true;
+        if (headerRangeAddress == null) {
+            return;
+        }
+        List<ColumnKey> columnKeys = new ArrayList<>(keys.values());
+        columnKeys.sort(Comparator.comparingInt(ColumnKey::getIndex));
+        String rowRef = Integer.toString(headerRangeAddress.getLastRow() + 1);
+        writer.write("<row r=\"");
+        writer.write(rowRef);
+        writer.write("\">");
+        int lastColumn = -1;
+        for (ColumnKey key : columnKeys) {
+            if (key.getIndex() < 0 || key.getIndex() == lastColumn) {
+                continue;
+            }
+            lastColumn = key.getIndex();
+            String value = key.getDescription();
+            if (value == null || value.isEmpty()) {
+                value = key.getName();
+            }
+            writeCell(key.getIndex(), rowRef, CELL_STRING, value, 0);
+        }
+        writer.write("</row>");
+    }
+
+    @Override
+    public void writeString(String text) throws IOException {
+        _verifyValueWrite("write string");
+        setCurrentValue(text);
+        setCurrentCell(CELL_STRING, text);
+    }
+
+    @Override
+    public void writeRaw(String text) throws IOException {
+        _verifyValueWrite("write raw");
+        setCurrentValue(text);
+
+        int column = getCurrentColumn();
+        if (column < 0) {
+            return;
+        }
+        if (column < cellTypes.length && cellTypes[column] == CELL_STRING) {
+            setCell(column, CELL_STRING, cellValues[column] + text);
+        } else {
+            setCell(column, CELL_STRING, text);
+        }
+    }
+
+    @Override
+    public void writeRaw(String text, int offset, int len) throws IOException {
+        writeRaw(text.substring(offset, offset + len));
+    }
+
+    @Override
+    public void writeBinary(Base64Variant bv, byte[] data, int offset, int len) throws IOException {
+        _verifyValueWrite("write binary");
+        byte[] buffer = data;
+        if (offset != 0 || len != data.length) {
+            buffer = new byte[len];
+            System.arraycopy(data, offset, buffer, 0, len);
+        }
+        String base64 = bv.encode(buffer);
+        setCurrentValue(base64);
+        setCurrentCell(CELL_STRING, base64);
+    }
+
+    @Override
+    public void writeNumber(int v) throws IOException {
+        _verifyValueWrite("write number");
+        setCurrentValue(v);
+        setCurrentCell(CELL_NUMBER, Integer.toString(v));
+    }
+
+    @Override
+    public void writeNumber(long v) throws IOException {
+        _verifyValueWrite("write number");
+        setCurrentValue(v);
+        setCurrentCell(CELL_NUMBER, Long.toString(v));
+    }
+
+    @Override
+    public void writeNumber(BigInteger v) throws IOException {
+        _verifyValueWrite("write number");
+        setCurrentValue(v);
+        setCurrentCell(CELL_STRING, v.toString());
+    }
+
+    @Override
+    public void writeNumber(double v) throws IOException {
+        _verifyValueWrite("write number");
+        setCurrentValue(v);
+        // 与POI一致：无穷大、NaN写为错误值
+        if (Double.isInfinite(v)) {
+            setCurrentCell(CELL_ERROR, "#DIV/0!");
+        } else if (Double.isNaN(v)) {
+            setCurrentCell(CELL_ERROR, "#NUM!");
+        } else {
+            setCurrentCell(CELL_NUMBER, Double.toString(v));
+        }
+    }
+
+    @Override
+    public void writeNumber(BigDecimal v) throws IOException {
+        _verifyValueWrite("write number");
+        setCurrentValue(v);
+        setCurrentCell(CELL_STRING, _asString(v));
+    }
+
+    @Override
+    public void writeNumber(String encodedValue) throws IOException {
+        _verifyValueWrite("write number");
+        setCurrentValue(encodedValue);
+        setCurrentCell(CELL_STRING, encodedValue);
+    }
+
+    @Override
+    public void writeBoolean(boolean state) throws IOException {
+        _verifyValueWrite("write boolean");
+        setCurrentValue(state);
+        setCurrentCell(CELL_BOOLEAN, state ? "1" : "0");
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        _verifyValueWrite("write null");
+        setCurrentValue(null);
+        setCurrentCell(CELL_BLANK, null);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        stream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            super.close();
+        }
+    }
+
+    /**
+     * 关闭zip（经包装按AUTO_CLOSE_TARGET关闭输出流）
+     */
+    @Override
+    protected void closeTarget() throws IOException {
+        if (zip == null) {
+            super.closeTarget();
+        } else {
+            zip.close();
+        }
+    }
+
+    /**
+     * 放弃生成：丢弃缓冲中的内容，不写入工作簿其余部分，释放压缩资源后关闭
+     */
+    public void discard() throws IOException {
+        if (isClosed()) {
+            return;
+        }
+        finished = true;
+        writer = null;
+        try {
+            if (zip != null) {
+                zip.close();
+            }
+        } finally {
+            super.close();
+        }
+    }
+
+    /**
+     * 结束当前Sheet并写入工作簿其余部分
+     */
+    protected void finish() throws IOException {
+        if (finished || writer == null) {
+            return;
+        }
+        finished = true;
+        if (!headerWritten) {
+            writeHeader();
+        }
+        endSheet();
+        writeParts();
+        zip.finish();
+    }
+
+    protected void writeParts() throws IOException {
+        int sheets = sheetNames.size();
+        StringBuilder contentTypes = new StringBuilder()
+                .append("<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">")
+                .append("<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>")
+                .append("<Default Extension=\"xml\" ContentType=\"application/xml\"/>")
+                .append("<Override PartName=\"/xl/workbook.xml\" ContentType=\"" + CONTENT_TYPE_PREFIX + "sheet.main+xml\"/>");
+        StringBuilder relationships = new StringBuilder()
+                .append("<Relationships xmlns=\"" + NS_PACKAGE_RELATIONSHIPS + "\">");
+        StringBuilder workbook = new StringBuilder()
+                .append("<workbook xmlns=\"" + NS_MAIN + "\" xmlns:r=\"" + NS_RELATIONSHIPS + "\">")
+                .append("<bookViews><workbookView/></bookViews><sheets>");
+        for (int i = 1; i <= sheets; i++) {
+            contentTypes.append("<Override PartName=\"/").append(getSheetEntry(i))
+                    .append("\" ContentType=\"" + CONTENT_TYPE_PREFIX + "worksheet+xml\"/>");
+            relationships.append("<Relationship Id=\"rId").append(i)
+                    .append("\" Type=\"" + NS_RELATIONSHIPS + "/worksheet\" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+            workbook.append("<sheet name=\"").append(escape(sheetNames.get(i - 1)))
+                    .append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+        }
+        contentTypes.append("<Override PartName=\"/xl/styles.xml\" ContentType=\"" + CONTENT_TYPE_PREFIX + "styles+xml\"/>");
+        relationships.append("<Relationship Id=\"rId").append(sheets + 1)
+                .append("\" Type=\"" + NS_RELATIONSHIPS + "/styles\" Target=\"styles.xml\"/>");
+        if (!sharedStrings.isEmpty()) {
+            contentTypes.append("<Override PartName=\"/" + SHARED_STRINGS_ENTRY + "\" ContentType=\"" + CONTENT_TYPE_PREFIX + "sharedStrings+xml\"/>");
+            relationships.append("<Relationship Id=\"rId").append(sheets + 2)
+                    .append("\" Type=\"" + NS_RELATIONSHIPS + "/sharedStrings\" Target=\"sharedStrings.xml\"/>");
+        }
+        contentTypes.append("</Types>");
+        relationships.append("</Relationships>");
+        workbook.append("</sheets></workbook>");
+
+        writeEntry("[Content_Types].xml", contentTypes.toString());
+        writeEntry("_rels/.rels", "<Relationships xmlns=\"" + NS_PACKAGE_RELATIONSHIPS + "\">" +
+                "<Relationship Id=\"rId1\" Type=\"" + NS_RELATIONSHIPS + "/officeDocument\" Target=\"xl/workbook.xml\"/>" +
+                "</Relationships>");
+        writeEntry("xl/_rels/workbook.xml.rels", relationships.toString());
+        writeEntry("xl/workbook.xml", workbook.toString());
+        writeEntry("xl/styles.xml", getStyles());
+        if (!sharedStrings.isEmpty()) {
+            writeSharedStrings();
+        }
+    }
+
+    /**
+     * 默认样式及各数据格式样式，非内置格式写入numFmts
+     */
+    protected String getStyles() {
+        StringBuilder numFmts = new StringBuilder();
+        StringBuilder cellXfs = new StringBuilder()
+                .append("<cellXfs count=\"").append(dataFormats.size() + 1).append("\">")
+                .append("<xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\"/>");
+        int customFormats = 0;
+        for (String dataFormat : dataFormats) {
+            int id = BuiltinFormats.getBuiltinFormat(dataFormat);
+            if (id < 0) {
+                id = FIRST_CUSTOM_FORMAT + customFormats++;
+                numFmts.append("<numFmt numFmtId=\"").append(id)
+                        .append("\" formatCode=\"").append(escape(dataFormat)).append("\"/>");
+            }
+            cellXfs.append("<xf numFmtId=\"").append(id)
+                    .append("\" fontId=\"0\" fillId=\"0\" borderId=\"0\" xfId=\"0\" applyNumberFormat=\"1\"/>");
+        }
+        cellXfs.append("</cellXfs>");
+        StringBuilder styles = new StringBuilder().append("<styleSheet xmlns=\"" + NS_MAIN + "\">");
+        if (customFormats > 0) {
+            styles.append("<numFmts count=\"").append(customFormats).append("\">").append(numFmts).append("</numFmts>");
+        }
+        return styles
+                .append("<fonts count=\"1\"><font><sz val=\"11\"/><name val=\"Calibri\"/></font></fonts>")
+                .append("<fills count=\"2\"><fill><patternFill patternType=\"none\"/></fill><fill><patternFill patternType=\"gray125\"/></fill></fills>")
+                .append("<borders count=\"1\"><border><left/><right/><top/><bottom/><diagonal/></border></borders>")
+                .append("<cellStyleXfs count=\"1\"><xf numFmtId=\"0\" fontId=\"0\" fillId=\"0\" borderId=\"0\"/></cellStyleXfs>")
+                .append(cellXfs)
+                .append("<cellStyles count=\"1\"><cellStyle name=\"Normal\" xfId=\"0\" builtinId=\"0\"/></cellStyles>")
+                .append("</styleSheet>")
+                .toString();
+    }
+
+    protected void writeSharedStrings() throws IOException {
+        zip.putNextEntry(new ZipEntry(SHARED_STRINGS_ENTRY));
+        writer.write(XML_DECLARATION);
+        writer.write("<sst xmlns=\"" + NS_MAIN + "\" count=\"" + sharedStringCount +
+                "\" uniqueCount=\"" + sharedStrings.size() + "\">");
+        for (String text : sharedStrings) {
+            writer.write("<si>");
+            writeText(text);
+            writer.write("</si>");
+        }
+        writer.write("</sst>");
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    protected void writeEntry(String name, String xml) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        writer.write(XML_DECLARATION);
+        writer.write(xml);
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    protected int getCurrentColumn() {
+        ColumnKey key = getCurrentColumnKey();
+        return key == null ? -1 : key.getIndex();
+    }
+
+    protected void setCurrentCell(int type, String value) {
+        int column = getCurrentColumn();
+        if (column < 0 || getCurrentRow() < 0) {
+            return;
+        }
+        setCell(column, type, value);
+    }
+
+    protected void setCell(int column, int type, String value) {
+        if (type == CELL_STRING && value.length() > SpreadsheetVersion.EXCEL2007.getMaxTextLength()) {
+            throw new IllegalArgumentException("The maximum length of cell contents (text) is " +
+                    SpreadsheetVersion.EXCEL2007.getMaxTextLength() + " characters");
+        }
+        if (column >= cellTypes.length) {
+            int length = Integer.max(column + 1, cellTypes.length * 2);
+            cellTypes = Arrays.copyOf(cellTypes, length);
+            cellValues = Arrays.copyOf(cellValues, length);
+        }
+        if (cellTypes[column] == CELL_NONE) {
+            if (rowSize == rowColumns.length) {
+                rowColumns = Arrays.copyOf(rowColumns, rowSize * 2);
+            }
+            rowColumns[rowSize++] = column;
+        }
+        cellTypes[column] = type;
+        cellValues[column] = value;
+    }
+
+    /**
+     * 写出当前行缓存并清空
+     */
+    protected void writeRow(int row) throws IOException {
+        String rowRef = Integer.toString(row + 1);
+        writer.write("<row r=\"");
+        writer.write(rowRef);
+        writer.write("\">");
+        // 单元格须按列顺序写出
+        Arrays.sort(rowColumns, 0, rowSize);
+        for (int i = 0; i < rowSize; i++) {
+            int column = rowColumns[i];
+            writeCell(column, rowRef, cellTypes[column], cellValues[column], cellStyleIndexes[cellTypes[column]]);
+            cellTypes[column] = CELL_NONE;
+            cellValues[column] = null;
+        }
+        writer.write("</row>");
+        rowSize = 0;
+    }
+
+    /**
+     * @param style 样式（cellXfs索引），0为默认样式
+     */
+    protected void writeCell(int column, String rowRef, int type, String value, int style) throws IOException {
+        writer.write("<c r=\"");
+        writer.write(getColumnName(column));
+        writer.write(rowRef);
+        if (style != 0) {
+            writer.write("\" s=\"");
+            writer.write(Integer.toString(style));
+        }
+        switch (type) {
+            case CELL_STRING: {
+                if (isInlineString(column, value)) {
+                    writer.write("\" t=\"inlineStr\"><is>");
+                    writeText(value);
+                    writer.write("</is></c>");
+                } else {
+                    writer.write("\" t=\"s\"><v>");
+                    writer.write(Integer.toString(getSharedStringIndex(value)));
+                    writer.write("</v></c>");
+                }
+                break;
+            }
+            case CELL_BOOLEAN: {
+                writer.write("\" t=\"b\"><v>");
+                writer.write(value);
+                writer.write("</v></c>");
+                break;
+            }
+            case CELL_ERROR: {
+                writer.write("\" t=\"e\"><v>");
+                writer.write(value);
+                writer.write("</v></c>");
+                break;
+            }
+            case CELL_BLANK: {
+                writer.write("\"/>");
+                break;
+            }
+            default: {
+                writer.write("\"><v>");
+                writer.write(value);
+                writer.write("</v></c>");
+                break;
+            }
+        }
+    }
+
+    protected int getSharedStringIndex(String text) {
+        sharedStringCount++;
+        Integer index = sharedStringIndexes.get(text);
+        if (index == null) {
+            index = sharedStrings.size();
+            sharedStrings.add(text);
+            sharedStringIndexes.put(text, index);
+        }
+        return index;
+    }
+
+    protected void writeText(String text) throws IOException {
+        if (!text.isEmpty() && (Character.isWhitespace(text.charAt(0)) ||
+                Character.isWhitespace(text.charAt(text.length() - 1)))) {
+            writer.write("<t xml:space=\"preserve\">");
+        } else {
+            writer.write("<t>");
+        }
+        writeEscaped(writer, text);
+        writer.write("</t>");
+    }
+
+    /**
+     * XML转义，XML 1.0不允许的控制字符按OOXML约定编码为_xHHHH_
+     */
+    protected static void writeEscaped(Writer writer, String text) throws IOException {
+        int length = text.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            String replacement;
+            if (c == '<') {
+                replacement = "&lt;";
+            } else if (c == '>') {
+                replacement = "&gt;";
+            } else if (c == '&') {
+                replacement = "&amp;";
+            } else if (c == '"') {
+                replacement = "&quot;";
+            } else if ((c < 0x20 && c != '\t' && c != '\n' && c != '\r') || c == 0xFFFE || c == 0xFFFF) {
+                replacement = String.format("_x%04X_", (int) c);
+            } else {
+                continue;
+            }
+            writer.write(text, start, i - start);
+            writer.write(replacement);
+            start = i + 1;
+        }
+        writer.write(text, start, length - start);
+    }
+
+    protected static String escape(String text) {
+        StringWriter buffer = new StringWriter(text.length());
+        try {
+            writeEscaped(buffer, text);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toString();
+    }
+
+    protected String getColumnName(int column) {
+        if (column >= columnNames.length) {
+            columnNames = Arrays.copyOf(columnNames, Integer.max(column + 1, columnNames.length * 2));
+        }
+        String name = columnNames[column];
+        if (name == null) {
+            name = CellReference.convertNumToColString(column);
+            columnNames[column] = name;
+        }
+        return name;
+    }
+}
@@ -0,0 +1,223 @@
+package cc.whohow.excel;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+
+/**
+ * 单元格占用索引：一次遍历区域内的物理单元格，记录每行非空列（有序）及非空列位图，
+ * 区域裁剪及空行判断不再逐行逐列扫描
+ */
+public class ExcelOccupancy {
+    private static final int[] EMPTY = new int[0];
+
+    private final CellRangeAddress range;
+    private final int firstRow;
+    private final int[][] rows;
+    private final BitSet columns = new BitSet();
+
+    public ExcelOccupancy(Excel excel, CellRangeAddress range) {
+        // 只索引区域与物理行的交集
+        int firstRow = Integer.max(range.getFirstRow(), excel.getSheet().getFirstRowNum());
+        int lastRow = Integer.min(range.getLastRow(), excel.getSheet().getLastRowNum());
+        this.range = range;
+        this.firstRow = firstRow;
+        this.rows = new int[Integer.max(lastRow - firstRow + 1, 0)][];
+        CellValueView view = new CellValueView();
+        int[] buffer = new int[16];
+        for (int r = firstRow; r <= lastRow; r++) {
+            int size = 0;
+            Row row = excel.getRow(r);
+            if (row != null) {
+                Iterator<Cell> cellIterator = row.cellIterator();
+                while (cellIterator.hasNext()) {
+                    Cell cell = cellIterator.next();
+                    int c = cell.getColumnIndex();
+                    if (c < range.getFirstColumn() || c > range.getLastColumn()) {
+                        continue;
+                    }
+                    if (!excel.getCellValue(excel.getCell(row, c), view).isEmpty()) {
+                        if (size == buffer.length) {
+                            buffer = Arrays.copyOf(buffer, size * 2);
+                        }
+                        buffer[size++] = c;
+                    }
+                }
+            }
+            // 合并区域按左上角单元格的值占用整个区域
+            for (CellRangeAddress mergedRegion : excel.getMergedRegions().getMergedRegions(r)) {
+                int firstColumn = Integer.max(range.getFirstColumn(), mergedRegion.getFirstColumn());
+                int lastColumn = Integer.min(range.getLastColumn(), mergedRegion.getLastColumn());
+                if (firstColumn > lastColumn) {
+                    continue;
+                }
+                Cell cell = excel.getCell(mergedRegion.getFirstRow(), mergedRegion.getFirstColumn());
+                if (cell == null || excel.getCellValue(cell, view).isEmpty()) {
+                    continue;
+                }
+                for (int c = firstColumn; c <= lastColumn; c++) {
+                    if (size == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, size * 2);
+                    }
+                    buffer[size++] = c;
+                }
+            }
+            if (size > 0) {
+                int[] rowColumns = distinct(buffer, size);
+                rows[r - firstRow] = rowColumns;
+                for (int c : rowColumns) {
+                    columns.set(c);
+                }
+            }
+        }
+    }
+
+    private static int[] distinct(int[] buffer, int size) {
+        int[] columns = Arrays.copyOf(buffer, size);
+        Arrays.sort(columns);
+        int n = 1;
+        for (int i = 1; i < columns.length; i++) {
+            if (columns[i] != columns[n - 1]) {
+                columns[n++] = columns[i];
+            }
+        }
+        return n == columns.length ? columns : Arrays.copyOf(columns, n);
+    }
+
+    public CellRangeAddress getRangeAddress() {
+        return range;
+    }
+
+    /**
+     * 行内非空列（有序）
+     */
+    public int[] getColumns(int row) {
+        int i = row - firstRow;
+        if (i < 0 || i >= rows.length || rows[i] == null) {
+            return EMPTY;
+        }
+        return rows[i];
+    }
+
+    /**
+     * 非空列位图
+     */
+    public BitSet getColumns() {
+        return columns;
+    }
+
+    /**
+     * 行内第一个非空列，不存在返回-1
+     */
+    public int getFirstColumn(int row) {
+        int[] columns = getColumns(row);
+        return columns.length == 0 ? -1 : columns[0];
+    }
+
+    /**
+     * 行内最后一个非空列，不存在返回-1
+     */
+    public int getLastColumn(int row) {
+        int[] columns = getColumns(row);
+        return columns.length == 0 ? -1 : columns[columns.length - 1];
+    }
+
+    public boolean isEmpty(int row, int firstColumn, int lastColumn) {
+        int[] columns = getColumns(row);
+        if (columns.length == 0) {
+            return true;
+        }
+        int i = Arrays.binarySearch(columns, firstColumn);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return i >= columns.length || columns[i] > lastColumn;
+    }
+
+    public CellRangeAddress trim(CellRangeAddress range) {
+        if (range == null) {
+            return null;
+        }
+        CellRangeAddress rowTrimmed = trimTop(trimBottom(range));
+        if (range.getFirstRow() == this.range.getFirstRow() && range.getLastRow() == this.range.getLastRow() &&
+                range.getFirstColumn() == this.range.getFirstColumn() && range.getLastColumn() == this.range.getLastColumn()) {
+            // 被裁掉的行均为空，剩余行的非空列即全部非空列
+            int firstColumn = columns.nextSetBit(range.getFirstColumn());
+            if (firstColumn < 0) {
+                return new CellRangeAddress(rowTrimmed.getFirstRow(), rowTrimmed.getLastRow(),
+                        range.getFirstColumn(), range.getFirstColumn());
+            }
+            int lastColumn = columns.previousSetBit(range.getLastColumn());
+            return new CellRangeAddress(rowTrimmed.getFirstRow(), rowTrimmed.getLastRow(), firstColumn, lastColumn);
+        }
+        return trimLeft(trimRight(rowTrimmed));
+    }
+
+    public CellRangeAddress trimTop(CellRangeAddress range) {
+        if (range == null) {
+            return null;
+        }
+        // 物理行之前的行均为空
+        int firstRow = Integer.max(range.getFirstRow(), Integer.min(range.getLastRow(), this.firstRow));
+        while (firstRow < range.getLastRow() && isEmpty(firstRow, range.getFirstColumn(), range.getLastColumn())) {
+            firstRow++;
+        }
+        return new CellRangeAddress(firstRow, range.getLastRow(), range.getFirstColumn(), range.getLastColumn());
+    }
+
+    public CellRangeAddress trimBottom(CellRangeAddress range) {
+        if (range == null) {
+            return null;
+        }
+        // 物理行之后的行均为空
+        int lastRow = Integer.min(range.getLastRow(), Integer.max(range.getFirstRow(), this.firstRow + rows.length - 1));
+        while (lastRow > range.getFirstRow() && isEmpty(lastRow, range.getFirstColumn(), range.getLastColumn())) {
+            lastRow--;
+        }
+        return new CellRangeAddress(range.getFirstRow(), lastRow, range.getFirstColumn(), range.getLastColumn());
+    }
+
+    public CellRangeAddress trimLeft(CellRangeAddress range) {
+        if (range == null) {
+            return null;
+        }
+        // 各行在区域内的最小非空列
+        int firstColumn = range.getLastColumn();
+        int lastRow = Integer.min(range.getLastRow(), this.firstRow + rows.length - 1);
+        for (int r = Integer.max(range.getFirstRow(), this.firstRow); r <= lastRow && firstColumn > range.getFirstColumn(); r++) {
+            int[] columns = getColumns(r);
+            int i = Arrays.binarySearch(columns, range.getFirstColumn());
+            if (i < 0) {
+                i = -i - 1;
+            }
+            if (i < columns.length) {
+                firstColumn = Integer.min(firstColumn, columns[i]);
+            }
+        }
+        return new CellRangeAddress(range.getFirstRow(), range.getLastRow(), firstColumn, range.getLastColumn());
+    }
+
+    public CellRangeAddress trimRight(CellRangeAddress range) {
+        if (range == null) {
+            return null;
+        }
+        // 各行在区域内的最大非空列
+        int lastColumn = range.getFirstColumn();
+        int lastRow = Integer.min(range.getLastRow(), this.firstRow + rows.length - 1);
+        for (int r = Integer.max(range.getFirstRow(), this.firstRow); r <= lastRow && lastColumn < range.getLastColumn(); r++) {
+            int[] columns = getColumns(r);
+            int i = Arrays.binarySearch(columns, range.getLastColumn());
+            if (i < 0) {
+                i = -i - 2;
+            }
+            if (i >= 0) {
+                lastColumn = Integer.max(lastColumn, columns[i]);
+            }
+        }
+        return new CellRangeAddress(range.getFirstRow(), range.getLastRow(), range.getFirstColumn(), lastColumn);
+    }
+}
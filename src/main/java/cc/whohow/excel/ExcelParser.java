@@ -8,23 +8,27 @@ import com.fasterxml.jackson.core.json.PackageVersion;
 import com.fasterxml.jackson.core.util.ByteArrayBuilder;
 import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
 import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.apache.poi.ss.util.CellRangeAddress;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.function.BiFunction;
 
 public class ExcelParser extends ParserMinimalBase {
-    private static final int BEFORE_START = -2;
-    private static final int START = -1;
+    protected static final int BEFORE_START = -2;
+    protected static final int START = -1;
 
     // parser context
     protected ObjectCodec codec;
@@ -36,19 +40,42 @@ public class ExcelParser extends ParserMinimalBase {
 
     // parser props
     protected InputStream stream;
+    protected File file;
+    protected boolean deleteFileOnClose;
     protected Excel excel;
     protected ExcelSchema schema;
+    protected ResolvedLayout layout;
     protected CellRangeAddress headerRangeAddress;
     protected CellRangeAddress bodyRangeAddress;
     protected List<ColumnKey> keys;
+    // 列索引 -> Key序号，存在重复列时为null
+    protected int[] keyByColumn;
+    // Body之外的Key列
+    protected int[] outerKeyColumns;
 
     // parser state
     protected int currentRow;
     protected int currentKey;
-    protected Cell currentCell;
+    protected ExcelRowBuffer rowBuffer = new ExcelRowBuffer();
+    protected ExcelRowBuffer currentRowBuffer = rowBuffer;
+    protected CellValueView cellValue = new CellValueView();
+    protected Iterator<Row> rowIterator;
+    protected Row nextPhysicalRow;
+    // 当前行有值的Key序号（稀疏遍历）
+    protected int[] rowKeys = new int[16];
+    protected int rowKeyCount = -1;
+    protected int rowKeyCursor = 0;
+    // 当前数值单元格的类型：整数值为INT/LONG，其余为DOUBLE
+    protected NumberType currentNumberType;
     protected boolean eof = false;
     protected boolean closed = false;
-    protected Deque<JsonToken> tokenBuffer = new ArrayDeque<>(2);
+    // 待输出Token：每步最多产生FIELD_NAME与值两个Token
+    protected final JsonToken[] tokenBuffer = new JsonToken[2];
+    protected int tokenHead = 0;
+    protected int tokenTail = 0;
+    // 复用的文本缓冲与位置
+    protected char[] textBuffer = new char[64];
+    protected JsonLocation location;
 
     public ExcelParser(IOContext ioContext,
                        int features,
@@ -61,11 +88,38 @@ public class ExcelParser extends ParserMinimalBase {
         this.stream = stream;
     }
 
+    public ExcelParser(IOContext ioContext,
+                       int features,
+                       int excelFeatures,
+                       ObjectCodec codec,
+                       File file,
+                       boolean deleteFileOnClose) {
+        super(features);
+        this.ioContext = ioContext;
+        this.codec = codec;
+        this.file = file;
+        this.deleteFileOnClose = deleteFileOnClose;
+    }
+
     public ExcelParser(int features,
                        InputStream stream) {
         this(null, features, 0, null, stream);
     }
 
+    /**
+     * 当前使用的读取引擎
+     */
+    public ExcelEngine getEngine() {
+        return ExcelEngine.USER_MODEL;
+    }
+
+    /**
+     * 本次解析确定的布局，读取第一个Token前返回null
+     */
+    public ResolvedLayout getLayout() {
+        return layout;
+    }
+
     @Override
     @SuppressWarnings("all")
     public void setSchema(FormatSchema schema) {
@@ -83,7 +137,9 @@ public class ExcelParser extends ParserMinimalBase {
             schema = new ExcelSchema();
         }
         try {
-            Workbook workbook = WorkbookFactory.create(stream);
+            Workbook workbook = file != null ?
+                    WorkbookFactory.create(file, null, true) :
+                    WorkbookFactory.create(stream);
             if (schema.getSheetName() != null) {
                 excel = new Excel(workbook.getSheet(schema.getSheetName()));
             } else if (schema.getSheetIndex() >= 0) {
@@ -91,14 +147,19 @@ public class ExcelParser extends ParserMinimalBase {
             } else {
                 excel = new Excel(workbook.getSheetAt(workbook.getActiveSheetIndex()));
             }
-            schema.detect(excel);
+            excel.setEvaluateFormula(schema.isEvaluateFormula());
+            layout = schema.detect(excel);
         } catch (InvalidFormatException e) {
             throw new JsonParseException(this, e.getMessage(), e);
         }
 
-        keys = schema.getKeys();
-        headerRangeAddress = excel.getCellRangeAddress(schema.getHeaderRangeAddress());
-        bodyRangeAddress = excel.getCellRangeAddress(schema.getBodyRangeAddress());
+        keys = layout.getKeys();
+        headerRangeAddress = layout.getHeaderRangeAddress();
+        bodyRangeAddress = layout.getBodyRangeAddress();
+        indexKeys();
+        if (schema.isSparse() && skipEmpty) {
+            rowIterator = excel.getSheet().rowIterator();
+        }
 
         setCurrentRow(BEFORE_START);
         setCurrentKey(BEFORE_START);
@@ -119,9 +180,40 @@ public class ExcelParser extends ParserMinimalBase {
     }
 
     protected boolean isRowEnd() {
+        if (rowKeyCount >= 0) {
+            return rowKeyCursor >= rowKeyCount;
+        }
         return getCurrentKey() >= keys.size() - 1;
     }
 
+    protected void indexKeys() {
+        int maxColumn = -1;
+        int outerKeyCount = 0;
+        for (ColumnKey key : keys) {
+            maxColumn = Integer.max(maxColumn, key.getIndex());
+        }
+        int[] keyByColumn = new int[maxColumn + 1];
+        int[] outerKeyColumns = new int[keys.size()];
+        Arrays.fill(keyByColumn, -1);
+        for (int i = 0; i < keys.size(); i++) {
+            int column = keys.get(i).getIndex();
+            if (column < 0) {
+                continue;
+            }
+            if (keyByColumn[column] >= 0) {
+                // 多个Key对应同一列，按Key顺序逐个输出
+                keyByColumn = null;
+                break;
+            }
+            keyByColumn[column] = i;
+            if (column < bodyRangeAddress.getFirstColumn() || column > bodyRangeAddress.getLastColumn()) {
+                outerKeyColumns[outerKeyCount++] = column;
+            }
+        }
+        this.keyByColumn = keyByColumn;
+        this.outerKeyColumns = keyByColumn == null ? null : Arrays.copyOf(outerKeyColumns, outerKeyCount);
+    }
+
     protected void next() throws IOException {
         if (bodyRangeAddress == null) {
             initialize();
@@ -150,70 +242,202 @@ public class ExcelParser extends ParserMinimalBase {
     }
 
     protected void _handleRowEnd() {
-        tokenBuffer.add(JsonToken.END_OBJECT);
+        addToken(JsonToken.END_OBJECT);
         setCurrentRow(getCurrentRow() + 1);
         setCurrentKey(BEFORE_START);
     }
 
-    protected void _handleRowStart() {
-        tokenBuffer.add(JsonToken.START_OBJECT);
-
-        CellRangeAddress range = excel.getRowRangeAddress(getCurrentRow());
-        range = excel.intersect(range, bodyRangeAddress);
-        if (excel.isEmpty(range)) {
-            if (skipEmpty) {
-                tokenBuffer.clear();
-                setCurrentRow(getCurrentRow() + 1);
+    protected void _handleRowStart() throws IOException {
+        if (rowIterator != null) {
+            // 稀疏遍历：跳到下一个物理行或合并区域所在行
+            int rowNum = nextRowNum(getCurrentRow());
+            if (rowNum < 0 || rowNum > bodyRangeAddress.getLastRow()) {
+                setCurrentRow(bodyRangeAddress.getLastRow() + 1);
                 return;
             }
+            setCurrentRow(rowNum);
+            readSparseRow(rowNum, rowBuffer);
+        } else {
+            readRow(getCurrentRow(), rowBuffer);
+        }
+        // 每行只读取一次，空行判断与输出均使用行缓冲
+        if (skipEmpty && rowBuffer.isEmpty(bodyRangeAddress.getFirstColumn(), bodyRangeAddress.getLastColumn())) {
+            setCurrentRow(getCurrentRow() + 1);
+            return;
         }
+        startRow(rowBuffer);
+    }
+
+    protected void startRow(ExcelRowBuffer row) {
+        addToken(JsonToken.START_OBJECT);
+        currentRowBuffer = row;
         setCurrentKey(START);
+        if (keyByColumn == null) {
+            rowKeyCount = -1;
+            return;
+        }
+        // 按列索引定位Key，只输出有值的列
+        rowKeyCount = 0;
+        rowKeyCursor = 0;
+        if (rowKeys.length < row.size()) {
+            rowKeys = new int[Integer.max(row.size(), rowKeys.length * 2)];
+        }
+        for (int i = 0; i < row.size(); i++) {
+            int column = row.getColumn(i);
+            if (column < keyByColumn.length && keyByColumn[column] >= 0) {
+                rowKeys[rowKeyCount++] = keyByColumn[column];
+            }
+        }
+        Arrays.sort(rowKeys, 0, rowKeyCount);
+    }
+
+    protected int nextRowNum(int rowNum) {
+        while (nextPhysicalRow == null || nextPhysicalRow.getRowNum() < rowNum) {
+            if (!rowIterator.hasNext()) {
+                nextPhysicalRow = null;
+                break;
+            }
+            nextPhysicalRow = rowIterator.next();
+        }
+        int nextMergedRow = excel.getMergedRegions().nextRow(rowNum);
+        if (nextPhysicalRow == null) {
+            return nextMergedRow;
+        }
+        if (nextMergedRow < 0) {
+            return nextPhysicalRow.getRowNum();
+        }
+        return Integer.min(nextPhysicalRow.getRowNum(), nextMergedRow);
+    }
+
+    protected void readSparseRow(int rowNum, ExcelRowBuffer buffer) {
+        buffer.clear();
+        buffer.setRowNum(rowNum);
+        // 物理单元格
+        Row row = nextPhysicalRow != null && nextPhysicalRow.getRowNum() == rowNum ? nextPhysicalRow : null;
+        if (row != null) {
+            Iterator<Cell> cellIterator = row.cellIterator();
+            while (cellIterator.hasNext()) {
+                int c = cellIterator.next().getColumnIndex();
+                if (bodyRangeAddress.getFirstColumn() <= c && c <= bodyRangeAddress.getLastColumn()) {
+                    readCell(rowNum, c, buffer);
+                }
+            }
+        }
+        // 合并单元格
+        for (CellRangeAddress mergedRegion : excel.getMergedRegions().getMergedRegions(rowNum)) {
+            int firstColumn = Integer.max(bodyRangeAddress.getFirstColumn(), mergedRegion.getFirstColumn());
+            int lastColumn = Integer.min(bodyRangeAddress.getLastColumn(), mergedRegion.getLastColumn());
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                readCell(rowNum, c, buffer);
+            }
+        }
+        // Body之外的Key列
+        for (int c : outerKeyColumns) {
+            readCell(rowNum, c, buffer);
+        }
+    }
+
+    protected void readRow(int rowNum, ExcelRowBuffer buffer) {
+        buffer.clear();
+        buffer.setRowNum(rowNum);
+        // 行内与Body相交的单元格
+        int firstColumn = 0;
+        int lastColumn = -1;
+        Row row = excel.getRow(rowNum);
+        if (row != null && row.getLastCellNum() > 0) {
+            firstColumn = Integer.max(bodyRangeAddress.getFirstColumn(), row.getFirstCellNum());
+            lastColumn = Integer.min(bodyRangeAddress.getLastColumn(), row.getLastCellNum() - 1);
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                readCell(rowNum, c, buffer);
+            }
+        }
+        // 其余Key对应的单元格（合并单元格）
+        for (ColumnKey key : keys) {
+            int c = key.getIndex();
+            if (c >= 0 && (c < firstColumn || c > lastColumn)) {
+                readCell(rowNum, c, buffer);
+            }
+        }
+    }
+
+    protected void readCell(int rowNum, int column, ExcelRowBuffer buffer) {
+        Cell cell = excel.getCell(rowNum, column);
+        if (cell != null) {
+            buffer.set(column, excel.getCellValue(cell, cellValue));
+        }
     }
 
     protected void _handleStart() {
-        tokenBuffer.add(JsonToken.START_ARRAY);
+        addToken(JsonToken.START_ARRAY);
         setCurrentRow(bodyRangeAddress.getFirstRow());
     }
 
     protected void _handleEnd() {
-        tokenBuffer.add(JsonToken.END_ARRAY);
+        addToken(JsonToken.END_ARRAY);
         eof = true;
     }
 
     protected void _handleCell() {
-        setCurrentKey(getCurrentKey() + 1);
-        Cell cell = getCurrentCell();
-        if (cell == null) {
+        setCurrentKey(rowKeyCount >= 0 ? rowKeys[rowKeyCursor++] : getCurrentKey() + 1);
+        CellType cellType = getCurrentCellType();
+        if (cellType == null) {
             return;
         }
-        switch (cell.getCellTypeEnum()) {
+        addToken(JsonToken.FIELD_NAME);
+        switch (cellType) {
             case STRING: {
-                tokenBuffer.add(JsonToken.FIELD_NAME);
-                tokenBuffer.add(JsonToken.VALUE_STRING);
+                addToken(JsonToken.VALUE_STRING);
                 break;
             }
             case NUMERIC: {
-                tokenBuffer.add(JsonToken.FIELD_NAME);
-                tokenBuffer.add(JsonToken.VALUE_NUMBER_FLOAT);
+                currentNumberType = numberTypeOf(getCurrentNumericValue());
+                addToken(currentNumberType == NumberType.DOUBLE ?
+                        JsonToken.VALUE_NUMBER_FLOAT : JsonToken.VALUE_NUMBER_INT);
                 break;
             }
             case BOOLEAN: {
-                tokenBuffer.add(JsonToken.FIELD_NAME);
-                if (cell.getBooleanCellValue()) {
-                    tokenBuffer.add(JsonToken.VALUE_TRUE);
-                } else {
-                    tokenBuffer.add(JsonToken.VALUE_FALSE);
-                }
+                addToken(getCurrentBooleanValue() ? JsonToken.VALUE_TRUE : JsonToken.VALUE_FALSE);
                 break;
             }
             default: {
-                tokenBuffer.add(JsonToken.FIELD_NAME);
-                tokenBuffer.add(JsonToken.VALUE_NULL);
+                addToken(JsonToken.VALUE_NULL);
                 break;
             }
         }
     }
 
+    protected void addToken(JsonToken token) {
+        tokenBuffer[tokenTail++] = token;
+    }
+
+    protected JsonToken pollToken() {
+        if (tokenHead == tokenTail) {
+            return null;
+        }
+        JsonToken token = tokenBuffer[tokenHead];
+        tokenBuffer[tokenHead++] = null;
+        if (tokenHead == tokenTail) {
+            tokenHead = 0;
+            tokenTail = 0;
+        }
+        return token;
+    }
+
+    protected void clearTokens() {
+        while (pollToken() != null) {
+        }
+    }
+
+    protected static NumberType numberTypeOf(double value) {
+        if (Integer.MIN_VALUE <= value && value <= Integer.MAX_VALUE && value == (int) value) {
+            return NumberType.INT;
+        }
+        if (Long.MIN_VALUE <= value && value < 0x1p63 && value == (long) value) {
+            return NumberType.LONG;
+        }
+        return NumberType.DOUBLE;
+    }
+
     @Override
     protected void _handleEOF() {
     }
@@ -236,9 +460,22 @@ public class ExcelParser extends ParserMinimalBase {
     @Override
     public void close() throws IOException {
         try {
-            stream.close();
+            closeExcel();
+            if (stream != null) {
+                stream.close();
+            }
         } finally {
             closed = true;
+            if (deleteFileOnClose) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+    }
+
+    protected void closeExcel() throws IOException {
+        // 基于文件打开的工作簿持有文件句柄，需关闭
+        if (file != null && excel != null) {
+            excel.getWorkbook().close();
         }
     }
 
@@ -283,15 +520,19 @@ public class ExcelParser extends ParserMinimalBase {
     }
 
     protected JsonLocation getLocation(int row, int column) {
-        return new JsonLocation(excel.getSheet(), -1L, row, column);
+        // 位置不变时复用，避免重复创建
+        if (location == null || location.getLineNr() != row || location.getColumnNr() != column) {
+            location = new JsonLocation(excel.getSheet(), -1L, row, column);
+        }
+        return location;
     }
 
     @Override
     public JsonToken nextToken() throws IOException {
-        while (tokenBuffer.isEmpty() && !eof) {
+        while (tokenHead == tokenTail && !eof) {
             next();
         }
-        _currToken = tokenBuffer.pollFirst();
+        _currToken = pollToken();
         if (_currToken == null) {
             return null;
         }
@@ -316,7 +557,6 @@ public class ExcelParser extends ParserMinimalBase {
             }
             case FIELD_NAME: {
                 parsingContext.setCurrentName(getCurrentColumnKey().getName());
-                parsingContext.setCurrentValue(excel.getCellValue(getCurrentCell()));
                 break;
             }
         }
@@ -327,13 +567,13 @@ public class ExcelParser extends ParserMinimalBase {
     public JsonParser skipChildren() {
         switch (currentToken()) {
             case START_ARRAY: {
-                tokenBuffer.clear();
+                clearTokens();
                 setCurrentRow(bodyRangeAddress.getLastRow() + 1);
                 setCurrentKey(BEFORE_START);
                 return this;
             }
             case START_OBJECT: {
-                tokenBuffer.clear();
+                clearTokens();
                 setCurrentRow(getCurrentRow() + 1);
                 setCurrentKey(BEFORE_START);
                 return this;
@@ -370,7 +610,15 @@ public class ExcelParser extends ParserMinimalBase {
     @Override
     public char[] getTextCharacters() {
         String text = getText();
-        return text == null ? null : text.toCharArray();
+        if (text == null) {
+            return null;
+        }
+        // 复用缓冲，内容在读取下一个Token前有效
+        if (textBuffer.length < text.length()) {
+            textBuffer = new char[Integer.max(text.length(), textBuffer.length * 2)];
+        }
+        text.getChars(0, text.length(), textBuffer, 0);
+        return textBuffer;
     }
 
     @Override
@@ -391,13 +639,16 @@ public class ExcelParser extends ParserMinimalBase {
 
     @Override
     public Number getNumberValue() throws IOException {
-        return getDoubleValue();
+        return getCurrentNumberValue();
     }
 
     @Override
     public NumberType getNumberType() {
         JsonToken token = currentToken();
-        if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return currentNumberType;
+        }
+        if (token == JsonToken.VALUE_NUMBER_FLOAT) {
             return NumberType.DOUBLE;
         }
         return null;
@@ -405,7 +656,7 @@ public class ExcelParser extends ParserMinimalBase {
 
     @Override
     public int getIntValue() throws IOException {
-        double value = getDoubleValue();
+        double value = getCurrentNumericValue();
         if (Integer.MIN_VALUE <= value && value <= Integer.MAX_VALUE) {
             return (int) value;
         }
@@ -415,9 +666,9 @@ public class ExcelParser extends ParserMinimalBase {
 
     @Override
     public long getLongValue() throws IOException {
-        double value = getDoubleValue();
-        if (Long.MIN_VALUE <= value && value <= Long.MAX_VALUE) {
-            return (int) value;
+        double value = getCurrentNumericValue();
+        if (Long.MIN_VALUE <= value && value < 0x1p63) {
+            return (long) value;
         }
         reportOverflowLong();
         return 0L;
@@ -425,6 +676,9 @@ public class ExcelParser extends ParserMinimalBase {
 
     @Override
     public BigInteger getBigIntegerValue() throws IOException {
+        if (getNumberType() == NumberType.INT || getNumberType() == NumberType.LONG) {
+            return BigInteger.valueOf(getLongValue());
+        }
         return getDecimalValue().toBigInteger();
     }
 
@@ -435,25 +689,35 @@ public class ExcelParser extends ParserMinimalBase {
 
     @Override
     public double getDoubleValue() throws IOException {
-        return getCurrentCell().getNumericCellValue();
+        return getCurrentNumericValue();
     }
 
     @Override
     public BigDecimal getDecimalValue() throws IOException {
-        return new BigDecimal(getDoubleValue());
+        // 优先使用原始文本，避免经double转换的精度损失
+        String text = getCurrentNumericText();
+        if (text != null) {
+            try {
+                return new BigDecimal(text);
+            } catch (NumberFormatException ignore) {
+            }
+        }
+        if (getNumberType() == NumberType.INT || getNumberType() == NumberType.LONG) {
+            return BigDecimal.valueOf(getLongValue());
+        }
+        return BigDecimal.valueOf(getDoubleValue());
     }
 
     @Override
     public byte[] getBinaryValue(Base64Variant bv) throws IOException {
         if (currentToken() == JsonToken.VALUE_STRING) {
-            Cell cell = getCurrentCell();
-            String base64 = cell.getStringCellValue();
+            String base64 = getCurrentStringValue();
             if (base64 == null || base64.isEmpty()) {
                 return NO_BYTES;
             }
             ByteArrayBuilder builder = new ByteArrayBuilder(base64.length() / 4 * 3 + 1);
             try {
-                _decodeBase64(cell.getStringCellValue(), builder, bv);
+                _decodeBase64(base64, builder, bv);
                 return builder.toByteArray();
             } finally {
                 builder.release();
@@ -480,15 +744,15 @@ public class ExcelParser extends ParserMinimalBase {
                 return getCurrentName();
             }
             case VALUE_STRING: {
-                return getCurrentCell().getStringCellValue();
+                return getCurrentStringValue();
             }
             case VALUE_NUMBER_FLOAT:
             case VALUE_NUMBER_INT: {
-                return excel.format(getCurrentCell().getNumericCellValue());
+                return excel.format(getCurrentNumericValue());
             }
             case VALUE_TRUE:
             case VALUE_FALSE: {
-                return excel.format(getCurrentCell().getBooleanCellValue());
+                return excel.format(getCurrentBooleanValue());
             }
             case VALUE_NULL: {
                 return defaultValue;
@@ -513,7 +777,6 @@ public class ExcelParser extends ParserMinimalBase {
 
     protected void setCurrentRow(int row) {
         this.currentRow = row;
-        this.currentCell = null;
     }
 
     protected int getCurrentKey() {
@@ -522,7 +785,6 @@ public class ExcelParser extends ParserMinimalBase {
 
     protected void setCurrentKey(int key) {
         this.currentKey = key;
-        this.currentCell = null;
     }
 
     protected int getCurrentColumn() {
@@ -540,10 +802,44 @@ public class ExcelParser extends ParserMinimalBase {
         return -1;
     }
 
-    protected Cell getCurrentCell() {
-        if (currentCell == null) {
-            currentCell = excel.getCell(getCurrentRow(), getCurrentColumn());
+    protected CellType getCurrentCellType() {
+        return currentRowBuffer.getCellType(getCurrentColumn());
+    }
+
+    protected String getCurrentStringValue() {
+        return currentRowBuffer.getStringValue(getCurrentColumn());
+    }
+
+    protected double getCurrentNumericValue() {
+        return currentRowBuffer.getNumericValue(getCurrentColumn());
+    }
+
+    protected String getCurrentNumericText() {
+        return currentRowBuffer.getNumericText(getCurrentColumn());
+    }
+
+    protected boolean getCurrentBooleanValue() {
+        return currentRowBuffer.getBooleanValue(getCurrentColumn());
+    }
+
+    protected Number getCurrentNumberValue() {
+        double value = getCurrentNumericValue();
+        if (currentNumberType == NumberType.INT) {
+            return (int) value;
+        }
+        if (currentNumberType == NumberType.LONG) {
+            return (long) value;
+        }
+        return value;
+    }
+
+    /**
+     * 当前单元格的值，整数值为Integer/Long
+     */
+    public Object getCurrentCellValue() {
+        if (getCurrentCellType() == CellType.NUMERIC) {
+            return getCurrentNumberValue();
         }
-        return currentCell;
+        return currentRowBuffer.getValue(getCurrentColumn());
     }
 }
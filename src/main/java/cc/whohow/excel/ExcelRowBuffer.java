@@ -0,0 +1,208 @@
+package cc.whohow.excel;
+
+import org.apache.poi.ss.usermodel.CellType;
+
+import java.util.Arrays;
+
+/**
+ * 行缓冲：按列保存一行单元格的类型化值，逐行复用
+ */
+public class ExcelRowBuffer {
+    private int rowNum = -1;
+    private int size = 0;
+    private int[] columns = new int[16];
+    private CellType[] types = new CellType[16];
+    private double[] numericValues = new double[16];
+    private boolean[] booleanValues = new boolean[16];
+    private String[] stringValues = new String[16];
+    // 数值单元格的原始文本（流式读取XLSX时保留），用于精确转换BigDecimal
+    private String[] numericTexts = new String[16];
+
+    public int getRowNum() {
+        return rowNum;
+    }
+
+    public void setRowNum(int rowNum) {
+        this.rowNum = rowNum;
+    }
+
+    /**
+     * 已填充单元格数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 第i个已填充单元格的列索引（按填充顺序）
+     */
+    public int getColumn(int i) {
+        return columns[i];
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            types[columns[i]] = null;
+            stringValues[columns[i]] = null;
+            numericTexts[columns[i]] = null;
+        }
+        size = 0;
+        rowNum = -1;
+    }
+
+    public void setBlank(int column) {
+        set(column, CellType.BLANK);
+    }
+
+    public void setError(int column) {
+        set(column, CellType.ERROR);
+    }
+
+    public void setString(int column, String value) {
+        set(column, CellType.STRING);
+        stringValues[column] = value;
+    }
+
+    public void setNumeric(int column, double value) {
+        setNumeric(column, value, null);
+    }
+
+    public void setNumeric(int column, double value, String text) {
+        set(column, CellType.NUMERIC);
+        numericValues[column] = value;
+        numericTexts[column] = text;
+    }
+
+    public void setBoolean(int column, boolean value) {
+        set(column, CellType.BOOLEAN);
+        booleanValues[column] = value;
+    }
+
+    public void set(int column, CellValueView value) {
+        if (value.getCellType() == null) {
+            return;
+        }
+        switch (value.getCellType()) {
+            case STRING: {
+                setString(column, value.getStringValue());
+                break;
+            }
+            case NUMERIC: {
+                setNumeric(column, value.getNumericValue());
+                break;
+            }
+            case BOOLEAN: {
+                setBoolean(column, value.getBooleanValue());
+                break;
+            }
+            case ERROR: {
+                setError(column);
+                break;
+            }
+            default: {
+                setBlank(column);
+                break;
+            }
+        }
+    }
+
+    protected void set(int column, CellType type) {
+        ensureCapacity(column + 1);
+        if (types[column] == null) {
+            columns[size++] = column;
+        }
+        types[column] = type;
+    }
+
+    /**
+     * 单元格类型，单元格不存在返回null
+     */
+    public CellType getCellType(int column) {
+        return (0 <= column && column < types.length) ? types[column] : null;
+    }
+
+    public String getStringValue(int column) {
+        return stringValues[column];
+    }
+
+    public double getNumericValue(int column) {
+        return numericValues[column];
+    }
+
+    /**
+     * 数值单元格的原始文本，未保留返回null
+     */
+    public String getNumericText(int column) {
+        return numericTexts[column];
+    }
+
+    public boolean getBooleanValue(int column) {
+        return booleanValues[column];
+    }
+
+    public Object getValue(int column) {
+        CellType type = getCellType(column);
+        if (type == null) {
+            return null;
+        }
+        switch (type) {
+            case STRING: {
+                return stringValues[column];
+            }
+            case NUMERIC: {
+                return numericValues[column];
+            }
+            case BOOLEAN: {
+                return booleanValues[column];
+            }
+            default: {
+                return null;
+            }
+        }
+    }
+
+    public boolean isEmptyCell(int column) {
+        CellType type = getCellType(column);
+        if (type == null) {
+            return true;
+        }
+        switch (type) {
+            case NUMERIC:
+            case BOOLEAN: {
+                return false;
+            }
+            case STRING: {
+                return stringValues[column].isEmpty();
+            }
+            default: {
+                return true;
+            }
+        }
+    }
+
+    public boolean isEmpty(int firstColumn, int lastColumn) {
+        for (int i = 0; i < size; i++) {
+            int column = columns[i];
+            if (firstColumn <= column && column <= lastColumn && !isEmptyCell(column)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    protected void ensureCapacity(int minLength) {
+        if (minLength <= types.length) {
+            return;
+        }
+        int length = types.length;
+        while (length < minLength) {
+            length *= 2;
+        }
+        columns = Arrays.copyOf(columns, length);
+        types = Arrays.copyOf(types, length);
+        numericValues = Arrays.copyOf(numericValues, length);
+        booleanValues = Arrays.copyOf(booleanValues, length);
+        stringValues = Arrays.copyOf(stringValues, length);
+        numericTexts = Arrays.copyOf(numericTexts, length);
+    }
+}
@@ -2,17 +2,32 @@ package cc.whohow.excel;
 
 import com.fasterxml.jackson.core.FormatSchema;
 import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellType;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
+/**
+ * Excel Schema模板，不可变：withXXX返回新实例，解析、生成时推测的布局保存在ResolvedLayout中，
+ * 同一Schema可缓存并在多线程间共享。
+ * <p>
+ * 注意：旧版本withXXX/addKey修改并返回当前实例，现在原实例保持不变，
+ * 忽略返回值的调用（如{@code schema.withHeader("A1:C1");}）将丢失设置，须改为{@code schema = schema.withHeader(...)}
+ */
 public class ExcelSchema implements FormatSchema {
     private SpreadsheetVersion version = SpreadsheetVersion.EXCEL2007;
     private int sheetIndex = -1;
     private String sheetName = null;
     private String headerRangeAddress = null;
     private String bodyRangeAddress = null;
-    private List<ColumnKey> keys = new ArrayList<>();
+    private List<ColumnKey> keys = Collections.emptyList();
+    private boolean evaluateFormula = false;
+    private boolean sparse = true;
+    private int headerProbeRows = 100;
+    private boolean normalizeHeader = false;
+    private Map<CellType, String> dataFormats = Collections.emptyMap();
+    private ExcelStringEncoding stringEncoding = ExcelStringEncoding.AUTO;
+    private boolean rollover = false;
+    private int maxRowsPerSheet = 0;
 
     @Override
     public String getSchemaType() {
@@ -24,49 +39,141 @@ public class ExcelSchema implements FormatSchema {
     }
 
     public ExcelSchema withVersion(SpreadsheetVersion version) {
-        this.version = version;
-        return this;
+        ExcelSchema schema = shallowCopy();
+        schema.version = version;
+        return schema;
     }
 
     public ExcelSchema withSheet(int sheetIndex) {
-        this.sheetIndex = sheetIndex;
-        return this;
+        ExcelSchema schema = shallowCopy();
+        schema.sheetIndex = sheetIndex;
+        return schema;
     }
 
     public ExcelSchema withSheet(String sheetName) {
-        this.sheetName = sheetName;
-        return this;
+        ExcelSchema schema = shallowCopy();
+        schema.sheetName = sheetName;
+        return schema;
     }
 
     public ExcelSchema withHeader(String header) {
-        this.headerRangeAddress = header;
-        return this;
+        ExcelSchema schema = shallowCopy();
+        schema.headerRangeAddress = header;
+        return schema;
     }
 
     public ExcelSchema withBody(String body) {
-        this.bodyRangeAddress = body;
-        return this;
+        ExcelSchema schema = shallowCopy();
+        schema.bodyRangeAddress = body;
+        return schema;
     }
 
     public ExcelSchema withKeys(List<ColumnKey> keys) {
-        this.keys.clear();
-        this.keys.addAll(keys);
-        return this;
+        ExcelSchema schema = shallowCopy();
+        schema.keys = Collections.unmodifiableList(new ArrayList<>(keys));
+        return schema;
     }
 
     public ExcelSchema addKey(String name) {
-        this.keys.add(new ColumnKey(name));
-        return this;
+        return addKey(new ColumnKey(name));
     }
 
     public ExcelSchema addKey(String name, String description) {
-        this.keys.add(new ColumnKey(name, description));
-        return this;
+        return addKey(new ColumnKey(name, description));
     }
 
     public ExcelSchema addKey(String name, String description, int index) {
-        this.keys.add(new ColumnKey(name, description, index));
-        return this;
+        return addKey(new ColumnKey(name, description, index));
+    }
+
+    public ExcelSchema addKey(ColumnKey key) {
+        List<ColumnKey> keys = new ArrayList<>(this.keys.size() + 1);
+        keys.addAll(this.keys);
+        keys.add(key);
+        ExcelSchema schema = shallowCopy();
+        schema.keys = Collections.unmodifiableList(keys);
+        return schema;
+    }
+
+    /**
+     * 读取时计算公式，默认使用文件中保存的计算结果（流式读取始终使用保存的结果）
+     */
+    public ExcelSchema withEvaluateFormula(boolean evaluateFormula) {
+        ExcelSchema schema = shallowCopy();
+        schema.evaluateFormula = evaluateFormula;
+        return schema;
+    }
+
+    /**
+     * 稀疏遍历：只访问物理行及单元格，按列索引定位Key；关闭后逐行逐Key扫描Body区域
+     */
+    public ExcelSchema withSparse(boolean sparse) {
+        ExcelSchema schema = shallowCopy();
+        schema.sparse = sparse;
+        return schema;
+    }
+
+    /**
+     * 根据Keys推测Header时，最多探测的非空行数
+     */
+    public ExcelSchema withHeaderProbeRows(int headerProbeRows) {
+        ExcelSchema schema = shallowCopy();
+        schema.headerProbeRows = headerProbeRows;
+        return schema;
+    }
+
+    /**
+     * Header匹配时忽略首尾空白、连续空白及大小写差异
+     */
+    public ExcelSchema withNormalizeHeader(boolean normalizeHeader) {
+        ExcelSchema schema = shallowCopy();
+        schema.normalizeHeader = normalizeHeader;
+        return schema;
+    }
+
+    /**
+     * 生成时该类型单元格使用的数据格式（如"0.00"），叠加在模板样式上
+     */
+    public ExcelSchema withDataFormat(CellType type, String dataFormat) {
+        Map<CellType, String> dataFormats = new EnumMap<>(CellType.class);
+        dataFormats.putAll(this.dataFormats);
+        if (dataFormat == null) {
+            dataFormats.remove(type);
+        } else {
+            dataFormats.put(type, dataFormat);
+        }
+        ExcelSchema schema = shallowCopy();
+        schema.dataFormats = Collections.unmodifiableMap(dataFormats);
+        return schema;
+    }
+
+    /**
+     * 生成XLSX时字符串的编码方式，在文件大小与内存占用之间取舍
+     */
+    public ExcelSchema withStringEncoding(ExcelStringEncoding stringEncoding) {
+        ExcelSchema schema = shallowCopy();
+        schema.stringEncoding = stringEncoding;
+        return schema;
+    }
+
+    /**
+     * 生成时行数达到Sheet上限后新建Sheet继续写入，并重复Header；
+     * 新Sheet名称由第一个Sheet的名称加序号组成（如"Data"、"Data (2)"，未指定名称时为"Sheet0 (2)"），超长时截断前缀；
+     * 关闭时超出上限立即报错
+     */
+    public ExcelSchema withRollover(boolean rollover) {
+        ExcelSchema schema = shallowCopy();
+        schema.rollover = rollover;
+        return schema;
+    }
+
+    /**
+     * 每个Sheet的最大行数（含Header），不超过版本上限，0为版本上限
+     */
+    public ExcelSchema withMaxRowsPerSheet(int maxRowsPerSheet) {
+        ExcelSchema schema = shallowCopy();
+        schema.maxRowsPerSheet = maxRowsPerSheet;
+        return schema;
     }
 
     public SpreadsheetVersion getVersion() {
@@ -93,9 +200,81 @@ public class ExcelSchema implements FormatSchema {
         return keys;
     }
 
-    public void detect(Excel excel) {
+    public boolean isEvaluateFormula() {
+        return evaluateFormula;
+    }
+
+    public boolean isSparse() {
+        return sparse;
+    }
+
+    public int getHeaderProbeRows() {
+        return headerProbeRows;
+    }
+
+    public boolean isNormalizeHeader() {
+        return normalizeHeader;
+    }
+
+    public String getDataFormat(CellType type) {
+        return dataFormats.get(type);
+    }
+
+    public ExcelStringEncoding getStringEncoding() {
+        return stringEncoding;
+    }
+
+    public boolean isRollover() {
+        return rollover;
+    }
+
+    public int getMaxRowsPerSheet() {
+        return maxRowsPerSheet;
+    }
+
+    /**
+     * 复制Schema，Keys一并复制
+     *
+     * @deprecated Schema已不可变，withXXX即返回新实例，无需复制
+     */
+    @Deprecated
+    public ExcelSchema copy() {
+        ExcelSchema schema = shallowCopy();
+        List<ColumnKey> keys = new ArrayList<>(this.keys.size());
+        for (ColumnKey key : this.keys) {
+            keys.add(new ColumnKey(key.getName(), key.getDescription(), key.getIndex()));
+        }
+        schema.keys = Collections.unmodifiableList(keys);
+        return schema;
+    }
+
+    protected ExcelSchema shallowCopy() {
+        ExcelSchema schema = new ExcelSchema();
+        schema.version = version;
+        schema.sheetIndex = sheetIndex;
+        schema.sheetName = sheetName;
+        schema.headerRangeAddress = headerRangeAddress;
+        schema.bodyRangeAddress = bodyRangeAddress;
+        schema.keys = keys;
+        schema.evaluateFormula = evaluateFormula;
+        schema.sparse = sparse;
+        schema.headerProbeRows = headerProbeRows;
+        schema.normalizeHeader = normalizeHeader;
+        schema.dataFormats = dataFormats;
+        schema.stringEncoding = stringEncoding;
+        schema.rollover = rollover;
+        schema.maxRowsPerSheet = maxRowsPerSheet;
+        return schema;
+    }
+
+    /**
+     * 推测布局，Schema本身不变
+     */
+    public ResolvedLayout detect(Excel excel) {
         ExcelDetector excelDetector = new ExcelDetector(excel);
-        excelDetector.withKeys(keys);
+        excelDetector.withKeys(keys)
+                .withProbeRows(headerProbeRows)
+                .withNormalizeHeader(normalizeHeader);
         if (headerRangeAddress != null) {
             excelDetector.withHeaderRangeAddress(excel.getCellRangeAddress(headerRangeAddress));
         }
@@ -103,9 +282,14 @@ public class ExcelSchema implements FormatSchema {
             excelDetector.withBodyRangeAddress(excel.getCellRangeAddress(bodyRangeAddress));
         }
         if (excelDetector.call()) {
-            keys = excelDetector.getKeys();
-            headerRangeAddress = excelDetector.getHeaderRangeAddress().formatAsString();
-            bodyRangeAddress = excelDetector.getBodyRangeAddress().formatAsString();
+            return new ResolvedLayout(
+                    excelDetector.getHeaderRangeAddress(),
+                    excelDetector.getBodyRangeAddress(),
+                    excelDetector.getKeys());
         }
+        return new ResolvedLayout(
+                excel.getCellRangeAddress(headerRangeAddress),
+                excel.getCellRangeAddress(bodyRangeAddress),
+                keys);
     }
 }
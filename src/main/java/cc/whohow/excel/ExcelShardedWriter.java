@@ -0,0 +1,194 @@
+package cc.whohow.excel;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+
+/**
+ * 分片导出：按行数将数据切分为多个文件，由固定大小的线程池并行生成（序列化及压缩），按顺序返回文件。
+ * 数据源只能顺序读取，为使多个分片同时生成，先收集一个分片的全部行再交给工作线程，
+ * 同时生成的分片数不超过并行度，另有一个分片在收集中，内存中最多保留(parallelism + 1) * rowsPerShard行（生成时逐行释放），
+ * 内存受限时应减小rowsPerShard；任一分片失败时删除已生成的全部文件
+ */
+public class ExcelShardedWriter {
+    protected static final int DEFAULT_ROWS_PER_SHARD = 500_000;
+
+    protected final ObjectWriter writer;
+    protected int rowsPerShard = DEFAULT_ROWS_PER_SHARD;
+    protected int parallelism = Runtime.getRuntime().availableProcessors();
+    protected IntFunction<File> fileNaming;
+
+    /**
+     * @param writer 元素类型的ObjectWriter
+     */
+    public ExcelShardedWriter(ObjectWriter writer) {
+        // 逐行写入时不能每行flush（usermodel引擎flush即输出整个工作簿）
+        this.writer = Objects.requireNonNull(writer, "writer")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    public ExcelShardedWriter withRowsPerShard(int rowsPerShard) {
+        this.rowsPerShard = requirePositive(rowsPerShard, "rowsPerShard");
+        return this;
+    }
+
+    public ExcelShardedWriter withParallelism(int parallelism) {
+        this.parallelism = requirePositive(parallelism, "parallelism");
+        return this;
+    }
+
+    /**
+     * 分片文件命名，参数为分片序号（从1开始）
+     */
+    public ExcelShardedWriter withFileNaming(IntFunction<File> fileNaming) {
+        this.fileNaming = fileNaming;
+        return this;
+    }
+
+    public ExcelShardedWriter withFileNaming(File directory, String prefix, String suffix) {
+        return withFileNaming(shard -> new File(directory, prefix + shard + suffix));
+    }
+
+    public int getRowsPerShard() {
+        return rowsPerShard;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public List<File> write(Stream<?> values) throws IOException {
+        try (Stream<?> stream = values) {
+            return write(stream.iterator());
+        }
+    }
+
+    /**
+     * 写入全部数据，返回按顺序排列的分片文件
+     */
+    public List<File> write(Iterator<?> values) throws IOException {
+        if (fileNaming == null) {
+            throw new IllegalStateException("fileNaming");
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        Deque<Future<File>> pending = new ArrayDeque<>();
+        List<File> files = new ArrayList<>();
+        boolean completed = false;
+        try {
+            int shard = 0;
+            while (values.hasNext()) {
+                // 收集下一分片时已提交的分片继续生成
+                List<Object> rows = new ArrayList<>(Integer.min(rowsPerShard, 8192));
+                while (rows.size() < rowsPerShard && values.hasNext()) {
+                    rows.add(values.next());
+                }
+                checkFailure(pending);
+                // 按顺序等待最早的分片
+                if (pending.size() >= parallelism) {
+                    await(pending.poll());
+                }
+                File file = fileNaming.apply(++shard);
+                files.add(file);
+                pending.add(executor.submit(() -> write(file, rows)));
+            }
+            while (!pending.isEmpty()) {
+                await(pending.poll());
+            }
+            completed = true;
+            return files;
+        } finally {
+            if (!completed) {
+                abort(executor, pending, files);
+            }
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 生成一个分片，逐行释放已写入的行
+     */
+    protected File write(File file, List<Object> rows) throws IOException {
+        try (SequenceWriter sequence = writer.writeValuesAsArray(file)) {
+            for (int i = 0; i < rows.size(); i++) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedIOException();
+                }
+                sequence.write(rows.set(i, null));
+            }
+        }
+        return file;
+    }
+
+    /**
+     * 已失败的分片立即抛出其异常，不再收集后续数据
+     */
+    protected void checkFailure(Deque<Future<File>> pending) throws IOException {
+        for (Future<File> future : pending) {
+            if (future.isDone()) {
+                await(future);
+            }
+        }
+    }
+
+    /**
+     * 取消进行中的分片，等待其退出后删除已生成及生成中的文件
+     */
+    protected void abort(ExecutorService executor, Deque<Future<File>> pending, List<File> files) {
+        for (Future<File> future : pending) {
+            future.cancel(true);
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (File file : files) {
+            try {
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    protected File await(Future<File> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static int requirePositive(int value, String name) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,18 @@
+package cc.whohow.excel;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 流式Sheet读取：按顺序逐行读取物理行
+ */
+public interface ExcelSheetReader extends Closeable {
+    SpreadsheetVersion getVersion();
+
+    /**
+     * 读取下一物理行到缓冲，无更多行返回false
+     */
+    boolean nextRow(ExcelRowBuffer row) throws IOException;
+}
@@ -0,0 +1,130 @@
+package cc.whohow.excel;
+
+import com.fasterxml.jackson.core.ObjectCodec;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellUtil;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式生成（SXSSF）：内存中只保留最近rowWindow行，其余行写入临时文件，内存占用与行数无关。
+ * Header在写入数据前写入模板Sheet，动态Key的Header单元格随后补写；仅支持XLSX，XLS退化为usermodel。
+ */
+public class ExcelStreamingGenerator extends ExcelGenerator {
+    protected static final int DEFAULT_ROW_WINDOW = SXSSFWorkbook.DEFAULT_WINDOW_SIZE;
+
+    // generator props
+    protected int rowWindow = DEFAULT_ROW_WINDOW;
+
+    // generator state
+    protected SXSSFWorkbook streamingWorkbook;
+
+    public ExcelStreamingGenerator(int features,
+                                   int excelFeatures,
+                                   ObjectCodec codec,
+                                   OutputStream stream) {
+        super(features, excelFeatures, codec, stream);
+    }
+
+    @Override
+    public ExcelEngine getEngine() {
+        return streamingWorkbook == null ? ExcelEngine.USER_MODEL : ExcelEngine.STREAMING;
+    }
+
+    public int getRowWindow() {
+        return rowWindow;
+    }
+
+    /**
+     * 内存中保留的行数
+     */
+    public void setRowWindow(int rowWindow) {
+        this.rowWindow = rowWindow;
+    }
+
+    @Override
+    protected void initialize() throws IOException {
+        super.initialize();
+        if (!(excel.getWorkbook() instanceof XSSFWorkbook)) {
+            return;
+        }
+
+        // 模板行（Header及之前）保留在XSSF中，Body区域的模板行已记录样式，由流式写入覆盖
+        XSSFSheet headerSheet = (XSSFSheet) excel.getSheet();
+        writeHeader();
+        List<Row> bodyRows = new ArrayList<>();
+        for (Row row : headerSheet) {
+            if (row.getRowNum() >= bodyRangeAddress.getFirstRow()) {
+                bodyRows.add(row);
+            }
+        }
+        for (Row row : bodyRows) {
+            headerSheet.removeRow(row);
+        }
+
+        XSSFWorkbook workbook = headerSheet.getWorkbook();
+        streamingWorkbook = new SXSSFWorkbook(workbook, rowWindow, false, stringEncoding == ExcelStringEncoding.SHARED);
+        excel = new Excel(streamingWorkbook.getSheetAt(workbook.getSheetIndex(headerSheet)));
+    }
+
+    /**
+     * SXSSF只能整体选择共享或内联字符串，ADAPTIVE按INLINE处理
+     */
+    @Override
+    protected ExcelStringEncoding resolveStringEncoding(ExcelStringEncoding stringEncoding) {
+        return stringEncoding == ExcelStringEncoding.SHARED ? stringEncoding : ExcelStringEncoding.INLINE;
+    }
+
+    /**
+     * 新Sheet的Header写入其XSSF模板Sheet，流式写入的行在其后输出
+     */
+    @Override
+    protected void rollover(String name) throws IOException {
+        if (streamingWorkbook == null) {
+            super.rollover(name);
+            return;
+        }
+        Sheet sheet = streamingWorkbook.createSheet(name);
+        XSSFSheet headerSheet = streamingWorkbook.getXSSFWorkbook().getSheet(name);
+        headerSheets.add(headerSheet);
+        writeHeader(headerSheet);
+        excel = new Excel(sheet);
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        if (streamingWorkbook == null) {
+            super.writeEndArray();
+        }
+    }
+
+    @Override
+    protected ColumnKey addColumnKey(String name) {
+        ColumnKey key = super.addColumnKey(name);
+        if (streamingWorkbook != null && headerRangeAddress != null) {
+            // 模板Sheet中的行在输出时写出，写入数据后仍可补写
+            for (Sheet headerSheet : headerSheets) {
+                writeHeader(CellUtil.getRow(headerRangeAddress.getLastRow(), headerSheet), key);
+            }
+        }
+        return key;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        } finally {
+            if (streamingWorkbook != null) {
+                streamingWorkbook.dispose();
+            }
+        }
+    }
+}
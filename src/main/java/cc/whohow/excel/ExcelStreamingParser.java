@@ -0,0 +1,237 @@
+package cc.whohow.excel;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.core.json.JsonReadContext;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.poifs.filesystem.FileMagic;
+import org.apache.poi.poifs.filesystem.NPOIFSFileSystem;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.util.TempFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 流式解析：逐行读取物理行，内存占用与行数无关。
+ * 不支持合并单元格，公式单元格使用文件中保存的计算结果。
+ */
+public class ExcelStreamingParser extends ExcelParser {
+    protected static final int DEFAULT_PROBE_ROWS = 100;
+
+    // parser props
+    protected int probeRows = DEFAULT_PROBE_ROWS;
+    protected ExcelSheetReader reader;
+    protected OPCPackage pkg;
+    protected NPOIFSFileSystem fs;
+
+    // parser state
+    protected Deque<ExcelRowBuffer> probe = new ArrayDeque<>();
+    protected boolean exhausted = false;
+
+    public ExcelStreamingParser(IOContext ioContext,
+                                int features,
+                                int excelFeatures,
+                                ObjectCodec codec,
+                                InputStream stream) {
+        super(ioContext, features, excelFeatures, codec, stream);
+    }
+
+    public ExcelStreamingParser(IOContext ioContext,
+                                int features,
+                                int excelFeatures,
+                                ObjectCodec codec,
+                                File file,
+                                boolean deleteFileOnClose) {
+        super(ioContext, features, excelFeatures, codec, file, deleteFileOnClose);
+    }
+
+    public ExcelStreamingParser(int features,
+                                InputStream stream) {
+        this(null, features, 0, null, stream);
+    }
+
+    @Override
+    public ExcelEngine getEngine() {
+        return ExcelEngine.STREAMING;
+    }
+
+    public int getProbeRows() {
+        return probeRows;
+    }
+
+    public void setProbeRows(int probeRows) {
+        this.probeRows = probeRows;
+    }
+
+    @Override
+    protected void initialize() throws IOException {
+        if (schema == null) {
+            schema = new ExcelSchema();
+        }
+        reader = openSheetReader();
+        excel = new Excel(reader.getVersion());
+
+        // 预读前若干行（至少覆盖Header）到内存Excel，复用ExcelDetector推测布局
+        String body = schema.getBodyRangeAddress();
+        CellRangeAddress header = excel.getCellRangeAddress(schema.getHeaderRangeAddress());
+        int minProbeRow = header == null ? -1 : header.getLastRow();
+        while (probe.isEmpty() || probe.size() < probeRows || probe.peekLast().getRowNum() < minProbeRow) {
+            ExcelRowBuffer row = new ExcelRowBuffer();
+            if (!reader.nextRow(row)) {
+                exhausted = true;
+                break;
+            }
+            probe.add(row);
+            writeProbeRow(row);
+        }
+        layout = schema.detect(excel);
+
+        keys = layout.getKeys();
+        headerRangeAddress = layout.getHeaderRangeAddress();
+        bodyRangeAddress = layout.getBodyRangeAddress();
+        if (!exhausted && !hasLastRow(body)) {
+            // 未读完且未指定Body结束行：Body延伸到Sheet末尾
+            bodyRangeAddress = new CellRangeAddress(
+                    bodyRangeAddress.getFirstRow(), reader.getVersion().getLastRowIndex(),
+                    bodyRangeAddress.getFirstColumn(), bodyRangeAddress.getLastColumn());
+        }
+        indexKeys();
+        releaseProbeSheet();
+
+        setCurrentRow(BEFORE_START);
+        setCurrentKey(BEFORE_START);
+
+        parsingContext = JsonReadContext.createRootContext(getCurrentRow(), getCurrentColumn(), null);
+    }
+
+    protected ExcelSheetReader openSheetReader() throws IOException {
+        if (file == null) {
+            // OPCPackage.open(InputStream)会解压全部条目到内存，NPOIFSFileSystem(InputStream)会缓冲整个文件，
+            // 先落地为临时文件
+            file = TempFile.createTempFile("excel-", ".tmp");
+            deleteFileOnClose = true;
+            Files.copy(stream, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        FileMagic fileMagic = ExcelFactory.getFileMagic(file);
+        switch (fileMagic) {
+            case OOXML: {
+                try {
+                    pkg = OPCPackage.open(file, PackageAccess.READ);
+                } catch (InvalidFormatException e) {
+                    throw new JsonParseException(this, e.getMessage(), e);
+                }
+                return new XSSFSheetReader(pkg, schema, new ISO8601VariantDateFormat());
+            }
+            case OLE2: {
+                fs = new NPOIFSFileSystem(file, true);
+                return new HSSFSheetReader(fs.getRoot(), schema, new ISO8601VariantDateFormat());
+            }
+            default: {
+                throw new JsonParseException(this, "Unsupported streaming format: " + fileMagic);
+            }
+        }
+    }
+
+    protected void writeProbeRow(ExcelRowBuffer row) {
+        for (int i = 0; i < row.size(); i++) {
+            int column = row.getColumn(i);
+            switch (row.getCellType(column)) {
+                case STRING: {
+                    excel.createCell(row.getRowNum(), column).setCellValue(row.getStringValue(column));
+                    break;
+                }
+                case NUMERIC: {
+                    excel.createCell(row.getRowNum(), column).setCellValue(row.getNumericValue(column));
+                    break;
+                }
+                case BOOLEAN: {
+                    excel.createCell(row.getRowNum(), column).setCellValue(row.getBooleanValue(column));
+                    break;
+                }
+                default: {
+                    excel.createCell(row.getRowNum(), column);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * 布局确定后不再需要预读Sheet中的行，释放以保证解析过程中只保留当前行
+     */
+    protected void releaseProbeSheet() {
+        Sheet sheet = excel.getSheet();
+        List<Row> rows = new ArrayList<>(sheet.getPhysicalNumberOfRows());
+        sheet.forEach(rows::add);
+        rows.forEach(sheet::removeRow);
+    }
+
+    /**
+     * 区域地址是否指定了结束行，如"A2:F100"
+     */
+    protected static boolean hasLastRow(String ref) {
+        return ref != null && ref.indexOf(':') >= 0 && Character.isDigit(ref.charAt(ref.length() - 1));
+    }
+
+    protected ExcelRowBuffer nextRowBuffer() throws IOException {
+        if (!probe.isEmpty()) {
+            return probe.pollFirst();
+        }
+        if (exhausted || !reader.nextRow(rowBuffer)) {
+            exhausted = true;
+            return null;
+        }
+        return rowBuffer;
+    }
+
+    @Override
+    protected void _handleRowStart() throws IOException {
+        while (true) {
+            ExcelRowBuffer row = nextRowBuffer();
+            if (row == null || row.getRowNum() > bodyRangeAddress.getLastRow()) {
+                setCurrentRow(bodyRangeAddress.getLastRow() + 1);
+                return;
+            }
+            if (row.getRowNum() < bodyRangeAddress.getFirstRow()) {
+                continue;
+            }
+            if (skipEmpty && row.isEmpty(bodyRangeAddress.getFirstColumn(), bodyRangeAddress.getLastColumn())) {
+                continue;
+            }
+            setCurrentRow(row.getRowNum());
+            startRow(row);
+            return;
+        }
+    }
+
+    @Override
+    protected void closeExcel() throws IOException {
+        try {
+            if (reader != null) {
+                reader.close();
+            }
+        } finally {
+            if (pkg != null) {
+                pkg.revert();
+            }
+            if (fs != null) {
+                fs.close();
+            }
+        }
+    }
+
+}
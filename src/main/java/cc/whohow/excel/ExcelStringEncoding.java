@@ -0,0 +1,23 @@
+package cc.whohow.excel;
+
+/**
+ * 生成XLSX时字符串的编码方式
+ */
+public enum ExcelStringEncoding {
+    /**
+     * 由生成引擎决定：USER_MODEL为SHARED，STREAMING、NATIVE为INLINE
+     */
+    AUTO,
+    /**
+     * 共享字符串表：去重，文件较小，字符串表在生成期间常驻内存
+     */
+    SHARED,
+    /**
+     * 内联字符串：内存占用与行数无关，速度较快，文件较大
+     */
+    INLINE,
+    /**
+     * 按列统计基数，重复率高的列使用共享字符串，其余列使用内联字符串
+     */
+    ADAPTIVE,
+}
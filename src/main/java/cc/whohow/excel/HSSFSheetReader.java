@@ -0,0 +1,263 @@
+package cc.whohow.excel;
+
+import org.apache.poi.hssf.eventusermodel.FormatTrackingHSSFListener;
+import org.apache.poi.hssf.record.*;
+import org.apache.poi.hssf.record.Record;
+import org.apache.poi.hssf.usermodel.HSSFWorkbook;
+import org.apache.poi.poifs.filesystem.DirectoryNode;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.DateUtil;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.DateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * XLS流式读取：基于BIFF8记录流，按需拉取记录，跟踪SST及数字格式
+ */
+public class HSSFSheetReader implements ExcelSheetReader {
+    // FormulaRecord缓存结果类型（与CellType编码一致，POI 3.17中CellType.forInt/getCode已废弃）
+    private static final int CACHED_NUMERIC = 0;
+    private static final int CACHED_STRING = 1;
+    private static final int CACHED_BOOLEAN = 4;
+    private static final int CACHED_ERROR = 5;
+
+    protected final InputStream stream;
+    protected final RecordFactoryInputStream records;
+    protected final FormatTrackingHSSFListener formatListener;
+    protected final DateFormat dateFormat;
+    protected SSTRecord sst;
+    protected boolean date1904;
+    protected int activeSheetIndex;
+    protected List<BoundSheetRecord> boundSheets = new ArrayList<>();
+    protected String sheetName;
+    // 预读的下一行记录
+    protected Record pending;
+    // 等待StringRecord的字符串公式列
+    protected int pendingStringColumn = -1;
+    protected boolean eof = false;
+
+    public HSSFSheetReader(DirectoryNode root, ExcelSchema schema, DateFormat dateFormat) throws IOException {
+        this.stream = root.createDocumentInputStream(HSSFWorkbook.getWorkbookDirEntryName(root));
+        this.records = new RecordFactoryInputStream(stream, false);
+        this.formatListener = new FormatTrackingHSSFListener(record -> {
+        });
+        this.dateFormat = dateFormat;
+        try {
+            readWorkbookGlobals();
+            seekSheet(schema);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public SpreadsheetVersion getVersion() {
+        return SpreadsheetVersion.EXCEL97;
+    }
+
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    protected Record nextRecord() {
+        Record record = records.nextRecord();
+        if (record != null) {
+            formatListener.processRecord(record);
+        }
+        return record;
+    }
+
+    protected void readWorkbookGlobals() throws IOException {
+        // Workbook全局记录：Sheet列表、活动Sheet、日期系统、SST、格式
+        for (Record record = nextRecord(); record != null; record = nextRecord()) {
+            switch (record.getSid()) {
+                case BoundSheetRecord.sid: {
+                    boundSheets.add((BoundSheetRecord) record);
+                    break;
+                }
+                case WindowOneRecord.sid: {
+                    activeSheetIndex = ((WindowOneRecord) record).getActiveSheetIndex();
+                    break;
+                }
+                case DateWindow1904Record.sid: {
+                    date1904 = ((DateWindow1904Record) record).getWindowing() == 1;
+                    break;
+                }
+                case SSTRecord.sid: {
+                    sst = (SSTRecord) record;
+                    break;
+                }
+                case EOFRecord.sid: {
+                    return;
+                }
+            }
+        }
+        throw new IOException("Unexpected end of workbook globals");
+    }
+
+    protected void seekSheet(ExcelSchema schema) throws IOException {
+        int sheetIndex = schema.getSheetIndex() >= 0 ? schema.getSheetIndex() : activeSheetIndex;
+        BoundSheetRecord sheet = null;
+        for (int i = 0; i < boundSheets.size(); i++) {
+            BoundSheetRecord boundSheet = boundSheets.get(i);
+            boolean matches = schema.getSheetName() != null ?
+                    schema.getSheetName().equals(boundSheet.getSheetname()) :
+                    i == sheetIndex;
+            if (matches) {
+                sheet = boundSheet;
+                break;
+            }
+        }
+        if (sheet == null) {
+            throw new IllegalArgumentException("Sheet: " +
+                    (schema.getSheetName() != null ? schema.getSheetName() : sheetIndex));
+        }
+        sheetName = sheet.getSheetname();
+
+        // Sheet子流按BOF位置排列，跳过目标之前的子流（含嵌套的图表子流）
+        int target = Arrays.asList(BoundSheetRecord.orderByBofPosition(boundSheets)).indexOf(sheet);
+        int depth = 0;
+        int index = -1;
+        for (Record record = nextRecord(); record != null; record = nextRecord()) {
+            if (record.getSid() == BOFRecord.sid) {
+                if (depth == 0) {
+                    index++;
+                    if (index == target) {
+                        return;
+                    }
+                }
+                depth++;
+            } else if (record.getSid() == EOFRecord.sid) {
+                depth--;
+            }
+        }
+        throw new IOException("Sheet not found: " + sheetName);
+    }
+
+    @Override
+    public boolean nextRow(ExcelRowBuffer row) throws IOException {
+        row.clear();
+        int depth = 0;
+        while (!eof) {
+            Record record = pending != null ? pending : nextRecord();
+            pending = null;
+            if (record == null) {
+                eof = true;
+                break;
+            }
+            if (record.getSid() == BOFRecord.sid) {
+                depth++;
+                continue;
+            }
+            if (record.getSid() == EOFRecord.sid) {
+                if (depth == 0) {
+                    eof = true;
+                    break;
+                }
+                depth--;
+                continue;
+            }
+            if (depth > 0) {
+                continue;
+            }
+            if (record.getSid() == StringRecord.sid) {
+                if (pendingStringColumn >= 0) {
+                    row.setString(pendingStringColumn, ((StringRecord) record).getString());
+                    pendingStringColumn = -1;
+                }
+                continue;
+            }
+            if (!(record instanceof CellValueRecordInterface)) {
+                continue;
+            }
+            CellValueRecordInterface cell = (CellValueRecordInterface) record;
+            if (row.getRowNum() < 0) {
+                row.setRowNum(cell.getRow());
+            } else if (row.getRowNum() != cell.getRow()) {
+                // 下一行的单元格，留待下次读取
+                pending = record;
+                return true;
+            }
+            readCell(row, cell);
+        }
+        return row.getRowNum() >= 0;
+    }
+
+    protected void readCell(ExcelRowBuffer row, CellValueRecordInterface cell) {
+        int column = cell.getColumn();
+        switch (((Record) cell).getSid()) {
+            case LabelSSTRecord.sid: {
+                row.setString(column, sst.getString(((LabelSSTRecord) cell).getSSTIndex()).getString());
+                break;
+            }
+            case LabelRecord.sid: {
+                row.setString(column, ((LabelRecord) cell).getValue());
+                break;
+            }
+            case NumberRecord.sid: {
+                readNumber(row, cell, ((NumberRecord) cell).getValue());
+                break;
+            }
+            case BoolErrRecord.sid: {
+                BoolErrRecord boolErr = (BoolErrRecord) cell;
+                if (boolErr.isBoolean()) {
+                    row.setBoolean(column, boolErr.getBooleanValue());
+                } else {
+                    row.setError(column);
+                }
+                break;
+            }
+            case FormulaRecord.sid: {
+                // 使用文件中保存的公式计算结果
+                FormulaRecord formula = (FormulaRecord) cell;
+                switch (formula.getCachedResultType()) {
+                    case CACHED_NUMERIC: {
+                        readNumber(row, cell, formula.getValue());
+                        break;
+                    }
+                    case CACHED_BOOLEAN: {
+                        row.setBoolean(column, formula.getCachedBooleanValue());
+                        break;
+                    }
+                    case CACHED_STRING: {
+                        row.setBlank(column);
+                        pendingStringColumn = column;
+                        break;
+                    }
+                    case CACHED_ERROR: {
+                        row.setError(column);
+                        break;
+                    }
+                    default: {
+                        row.setBlank(column);
+                        break;
+                    }
+                }
+                break;
+            }
+            default: {
+                row.setBlank(column);
+                break;
+            }
+        }
+    }
+
+    protected void readNumber(ExcelRowBuffer row, CellValueRecordInterface cell, double value) {
+        if (DateUtil.isValidExcelDate(value) &&
+                DateUtil.isADateFormat(formatListener.getFormatIndex(cell), formatListener.getFormatString(cell))) {
+            row.setString(cell.getColumn(), dateFormat.format(DateUtil.getJavaDate(value, date1904)));
+        } else {
+            row.setNumeric(cell.getColumn(), value);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+}
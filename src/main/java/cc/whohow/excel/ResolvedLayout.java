@@ -0,0 +1,52 @@
+package cc.whohow.excel;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 单次解析、生成时确定的布局：Header、Body区域及带列索引的Keys，不可变
+ */
+public class ResolvedLayout {
+    private final CellRangeAddress headerRangeAddress;
+    private final CellRangeAddress bodyRangeAddress;
+    private final List<ColumnKey> keys;
+
+    public ResolvedLayout(CellRangeAddress headerRangeAddress,
+                          CellRangeAddress bodyRangeAddress,
+                          List<ColumnKey> keys) {
+        this.headerRangeAddress = copy(headerRangeAddress);
+        this.bodyRangeAddress = copy(bodyRangeAddress);
+        this.keys = Collections.unmodifiableList(new ArrayList<>(keys));
+    }
+
+    private static CellRangeAddress copy(CellRangeAddress range) {
+        return range == null ? null : range.copy();
+    }
+
+    /**
+     * Header区域，不存在返回null
+     */
+    public CellRangeAddress getHeaderRangeAddress() {
+        return copy(headerRangeAddress);
+    }
+
+    public CellRangeAddress getBodyRangeAddress() {
+        return copy(bodyRangeAddress);
+    }
+
+    public List<ColumnKey> getKeys() {
+        return keys;
+    }
+
+    @Override
+    public String toString() {
+        return "ResolvedLayout{" +
+                "header=" + (headerRangeAddress == null ? null : headerRangeAddress.formatAsString()) +
+                ", body=" + (bodyRangeAddress == null ? null : bodyRangeAddress.formatAsString()) +
+                ", keys=" + keys +
+                '}';
+    }
+}
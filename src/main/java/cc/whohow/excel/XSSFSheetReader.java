@@ -0,0 +1,277 @@
+package cc.whohow.excel;
+
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.StaxHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.SAXException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.DateFormat;
+import java.util.BitSet;
+
+/**
+ * XLSX流式读取：基于XSSFReader，按需拉取sheetN.xml中的行
+ */
+public class XSSFSheetReader implements ExcelSheetReader {
+    private static final XMLInputFactory XML_INPUT_FACTORY = StaxHelper.newXMLInputFactory();
+
+    protected final OPCPackage pkg;
+    protected final DateFormat dateFormat;
+    protected ReadOnlySharedStringsTable sharedStrings;
+    protected StylesTable styles;
+    protected boolean date1904;
+    protected int activeSheetIndex;
+    protected String sheetName;
+    protected InputStream sheetStream;
+    protected XMLStreamReader xml;
+    protected int lastRowNum = -1;
+    // 样式是否为日期格式的缓存
+    protected BitSet resolvedStyles = new BitSet();
+    protected BitSet dateStyles = new BitSet();
+
+    public XSSFSheetReader(OPCPackage pkg, ExcelSchema schema, DateFormat dateFormat) throws IOException {
+        this.pkg = pkg;
+        this.dateFormat = dateFormat;
+        try {
+            XSSFReader reader = new XSSFReader(pkg);
+            sharedStrings = new ReadOnlySharedStringsTable(pkg);
+            styles = reader.getStylesTable();
+            try (InputStream workbook = reader.getWorkbookData()) {
+                readWorkbookProperties(workbook);
+            }
+            sheetStream = openSheet(reader, schema);
+            xml = XML_INPUT_FACTORY.createXMLStreamReader(sheetStream);
+        } catch (OpenXML4JException | SAXException | XMLStreamException e) {
+            close();
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    public SpreadsheetVersion getVersion() {
+        return SpreadsheetVersion.EXCEL2007;
+    }
+
+    public String getSheetName() {
+        return sheetName;
+    }
+
+    protected void readWorkbookProperties(InputStream workbook) throws XMLStreamException {
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(workbook);
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                switch (reader.getLocalName()) {
+                    case "workbookPr": {
+                        String value = reader.getAttributeValue(null, "date1904");
+                        date1904 = "1".equals(value) || "true".equals(value);
+                        break;
+                    }
+                    case "workbookView": {
+                        String value = reader.getAttributeValue(null, "activeTab");
+                        activeSheetIndex = value == null ? 0 : Integer.parseInt(value);
+                        break;
+                    }
+                    case "sheets": {
+                        return;
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+
+    protected InputStream openSheet(XSSFReader reader, ExcelSchema schema) throws IOException, OpenXML4JException {
+        int sheetIndex = schema.getSheetIndex() >= 0 ? schema.getSheetIndex() : activeSheetIndex;
+        XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+        for (int i = 0; sheets.hasNext(); i++) {
+            InputStream sheet = sheets.next();
+            boolean matches = schema.getSheetName() != null ?
+                    schema.getSheetName().equals(sheets.getSheetName()) :
+                    i == sheetIndex;
+            if (matches) {
+                sheetName = sheets.getSheetName();
+                return sheet;
+            }
+            sheet.close();
+        }
+        throw new IllegalArgumentException("Sheet: " +
+                (schema.getSheetName() != null ? schema.getSheetName() : sheetIndex));
+    }
+
+    @Override
+    public boolean nextRow(ExcelRowBuffer row) throws IOException {
+        row.clear();
+        try {
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT && "row".equals(xml.getLocalName())) {
+                    readRow(row);
+                    return true;
+                }
+                if (event == XMLStreamConstants.END_ELEMENT && "sheetData".equals(xml.getLocalName())) {
+                    return false;
+                }
+            }
+            return false;
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+
+    protected void readRow(ExcelRowBuffer row) throws XMLStreamException {
+        String r = xml.getAttributeValue(null, "r");
+        lastRowNum = r == null ? lastRowNum + 1 : Integer.parseInt(r) - 1;
+        row.setRowNum(lastRowNum);
+
+        int lastColumn = -1;
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT && "c".equals(xml.getLocalName())) {
+                String ref = xml.getAttributeValue(null, "r");
+                lastColumn = ref == null ? lastColumn + 1 : new CellReference(ref).getCol();
+                readCell(row, lastColumn);
+            } else if (event == XMLStreamConstants.END_ELEMENT && "row".equals(xml.getLocalName())) {
+                return;
+            }
+        }
+    }
+
+    protected void readCell(ExcelRowBuffer row, int column) throws XMLStreamException {
+        String type = xml.getAttributeValue(null, "t");
+        String style = xml.getAttributeValue(null, "s");
+        String value = null;
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (xml.getLocalName()) {
+                    case "v": {
+                        value = xml.getElementText();
+                        break;
+                    }
+                    case "is": {
+                        value = readInlineString();
+                        break;
+                    }
+                    default: {
+                        skipElement();
+                        break;
+                    }
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && "c".equals(xml.getLocalName())) {
+                break;
+            }
+        }
+        if (value == null) {
+            row.setBlank(column);
+            return;
+        }
+        if (type == null) {
+            type = "n";
+        }
+        switch (type) {
+            case "s": {
+                row.setString(column, sharedStrings.getEntryAt(Integer.parseInt(value)));
+                break;
+            }
+            case "inlineStr":
+            case "str":
+            case "d": {
+                row.setString(column, value);
+                break;
+            }
+            case "b": {
+                row.setBoolean(column, "1".equals(value) || "true".equals(value));
+                break;
+            }
+            case "e": {
+                row.setError(column);
+                break;
+            }
+            default: {
+                double numericValue = Double.parseDouble(value);
+                if (style != null && DateUtil.isValidExcelDate(numericValue) && isDateStyle(Integer.parseInt(style))) {
+                    row.setString(column, dateFormat.format(DateUtil.getJavaDate(numericValue, date1904)));
+                } else {
+                    row.setNumeric(column, numericValue, value);
+                }
+                break;
+            }
+        }
+    }
+
+    protected String readInlineString() throws XMLStreamException {
+        // 富文本：拼接各段<t>，忽略拼音<rPh>
+        StringBuilder buffer = new StringBuilder();
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                if ("t".equals(xml.getLocalName())) {
+                    buffer.append(xml.getElementText());
+                } else if ("rPh".equals(xml.getLocalName())) {
+                    skipElement();
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && "is".equals(xml.getLocalName())) {
+                break;
+            }
+        }
+        return buffer.toString();
+    }
+
+    protected void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0 && xml.hasNext()) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    protected boolean isDateStyle(int style) {
+        // 缺少styles.xml时没有日期样式
+        if (styles == null) {
+            return false;
+        }
+        if (!resolvedStyles.get(style)) {
+            resolvedStyles.set(style);
+            if (style < styles.getNumCellStyles()) {
+                XSSFCellStyle cellStyle = styles.getStyleAt(style);
+                dateStyles.set(style, DateUtil.isADateFormat(cellStyle.getDataFormat(), cellStyle.getDataFormatString()));
+            }
+        }
+        return dateStyles.get(style);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (xml != null) {
+                xml.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            if (sheetStream != null) {
+                sheetStream.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package cc.whohow.excel;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Date;
+
+public class TestExcel {
+    static Excel createExcel(SpreadsheetVersion version) {
+        Excel excel = new Excel(version);
+        Workbook workbook = excel.getWorkbook();
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+        excel.createCell(0, 0).setCellFormula("1+2");
+        excel.createCell(0, 1).setCellValue(new Date(1500000000000L));
+        excel.getCell(0, 1).setCellStyle(dateStyle);
+        excel.createCell(0, 2).setCellValue("text");
+        excel.createCell(0, 3).setCellFormula("1/0");
+        workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+        return excel;
+    }
+
+    @Test
+    public void testGetCell() {
+        for (SpreadsheetVersion version : SpreadsheetVersion.values()) {
+            Excel excel = createExcel(version);
+            // 返回原始单元格，读取不修改单元格
+            Assert.assertEquals(CellType.FORMULA, excel.getCell(0, 0).getCellTypeEnum());
+            Assert.assertEquals(3.0, excel.getCellValueView(0, 0).getValue());
+            Assert.assertEquals(CellType.STRING, excel.getCellValueView(0, 1).getCellType());
+            Assert.assertEquals(CellType.FORMULA, excel.getCell(0, 0).getCellTypeEnum());
+            Assert.assertEquals(CellType.NUMERIC, excel.getCell(0, 1).getCellTypeEnum());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testNormalizeCellValue() {
+        for (SpreadsheetVersion version : SpreadsheetVersion.values()) {
+            Excel excel = createExcel(version);
+            String date = excel.getCellValueView(0, 1).getStringValue();
+
+            Cell formula = excel.normalizeCellValue(excel.getCell(0, 0));
+            Assert.assertEquals(CellType.NUMERIC, formula.getCellTypeEnum());
+            Assert.assertEquals(3, formula.getNumericCellValue(), 0);
+            Cell dateCell = excel.normalizeCellValue(excel.getCell(0, 1));
+            Assert.assertEquals(CellType.STRING, dateCell.getCellTypeEnum());
+            Assert.assertEquals(date, dateCell.getStringCellValue());
+            Assert.assertEquals("text", excel.normalizeCellValue(excel.getCell(0, 2)).getStringCellValue());
+            Assert.assertEquals(CellType.ERROR, excel.normalizeCellValue(excel.getCell(0, 3)).getCellTypeEnum());
+            Assert.assertNull(excel.normalizeCellValue(null));
+        }
+    }
+}
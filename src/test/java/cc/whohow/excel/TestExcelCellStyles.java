@@ -0,0 +1,50 @@
+package cc.whohow.excel;
+
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.*;
+
+public class TestExcelCellStyles {
+    @Test
+    public void test() throws Exception {
+        try (Workbook workbook = new XSSFWorkbook()) {
+            CellStyle template = workbook.createCellStyle();
+            ExcelCellStyles cellStyles = new ExcelCellStyles(workbook);
+
+            Assert.assertSame(template, cellStyles.getCellStyle(template, null));
+            CellStyle cellStyle = cellStyles.getCellStyle(template, "0.00");
+            Assert.assertNotSame(template, cellStyle);
+            Assert.assertEquals("0.00", cellStyle.getDataFormatString());
+            Assert.assertSame(cellStyle, cellStyles.getCellStyle(template, "0.00"));
+            Assert.assertNotSame(cellStyle, cellStyles.getCellStyle(null, "0.00"));
+            Assert.assertEquals(2, cellStyles.size());
+            Assert.assertEquals(4, workbook.getNumCellStyles());
+        }
+    }
+
+    @Test
+    public void testGenerator() throws Exception {
+        List<Map<String, Object>> data = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", i);
+            row.put("score", i / 3.0);
+            row.put("name", "name" + i);
+            data.add(row);
+        }
+        ExcelSchema schema = new ExcelSchema().withDataFormat(CellType.NUMERIC, "0.00");
+        byte[] bytes = new ExcelMapper().writer(schema).writeValueAsBytes(data);
+
+        try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(bytes))) {
+            // 默认样式 + 一个数值格式样式
+            Assert.assertEquals(2, workbook.getNumCellStyles());
+            Row row = workbook.getSheetAt(0).getRow(100);
+            Assert.assertEquals("0.00", row.getCell(1).getCellStyle().getDataFormatString());
+            Assert.assertEquals(0, row.getCell(2).getCellStyle().getIndex());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package cc.whohow.excel;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class TestExcelDetector {
+    static Excel createExcel() {
+        Excel excel = new Excel(SpreadsheetVersion.EXCEL2007);
+        excel.createCell(0, 0).setCellValue("title");
+        excel.createCell(3, 2).setCellValue(" User  ID ");
+        excel.createCell(3, 3).setCellValue("name");
+        excel.createCell(3, 4).setCellValue("Name");
+        for (int r = 4; r < 1000; r++) {
+            excel.createCell(r, 2).setCellValue(r);
+            excel.createCell(r, 3).setCellValue("name" + r);
+        }
+        return excel;
+    }
+
+    static List<ColumnKey> keys() {
+        return Arrays.asList(new ColumnKey("id", "user id"), new ColumnKey("name", "Name"));
+    }
+
+    @Test
+    public void test() {
+        ExcelDetector detector = new ExcelDetector(createExcel())
+                .withKeys(keys())
+                .withNormalizeHeader(true);
+        Assert.assertTrue(detector.call());
+        List<ColumnKey> keys = detector.getKeys();
+        Assert.assertEquals("A4:E4", detector.getHeaderRangeAddress().formatAsString());
+        Assert.assertEquals("A5:E1000", detector.getBodyRangeAddress().formatAsString());
+        Assert.assertEquals(2, keys.get(0).getIndex());
+        // 规范化后description与name均匹配"name"列，description优先取第一列
+        Assert.assertEquals(3, keys.get(1).getIndex());
+    }
+
+    @Test
+    public void testExactMatch() {
+        ExcelDetector detector = new ExcelDetector(createExcel()).withKeys(keys());
+        Assert.assertTrue(detector.call());
+        List<ColumnKey> keys = detector.getKeys();
+        Assert.assertEquals(-1, keys.get(0).getIndex());
+        Assert.assertEquals(4, keys.get(1).getIndex());
+    }
+
+    @Test
+    public void testProbeRows() {
+        ExcelDetector detector = new ExcelDetector(createExcel())
+                .withKeys(keys())
+                .withProbeRows(1);
+        Assert.assertFalse(detector.call());
+    }
+
+    @Test
+    public void testUpdateKeys() {
+        ExcelDetector detector = new ExcelDetector(createExcel())
+                .withKeys(keys())
+                .withHeaderRangeAddress(CellRangeAddress.valueOf("C4:E4"))
+                .withNormalizeHeader(true);
+        Assert.assertTrue(detector.call());
+        List<ColumnKey> keys = detector.getKeys();
+        Assert.assertEquals(2, keys.get(0).getIndex());
+        Assert.assertEquals(3, keys.get(1).getIndex());
+    }
+}
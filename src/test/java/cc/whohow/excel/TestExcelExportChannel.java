@@ -0,0 +1,120 @@
+package cc.whohow.excel;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestExcelExportChannel {
+    static Iterator<Map<String, Object>> counting(List<Map<String, Object>> data, AtomicInteger consumed) {
+        Iterator<Map<String, Object>> iterator = data.iterator();
+        return new Iterator<Map<String, Object>>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Map<String, Object> next() {
+                consumed.incrementAndGet();
+                return iterator.next();
+            }
+        };
+    }
+
+    @Test
+    public void testRead() throws Exception {
+        List<Map<String, Object>> data = TestExcelNativeGenerator.data(5000);
+        AtomicInteger consumed = new AtomicInteger();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ExcelExportChannel channel = TestExcelNativeGenerator.mapper(ExcelEngine.NATIVE)
+                .exportChannel(counting(data, consumed), Map.class)
+                .withBatchRows(100)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1024);
+            Assert.assertTrue(channel.read(buffer) > 0);
+            // 按需生成，首次读取不会消费全部数据
+            Assert.assertTrue(consumed.get() < data.size());
+            do {
+                buffer.flip();
+                out.write(buffer.array(), 0, buffer.limit());
+                buffer.clear();
+            } while (channel.read(buffer) >= 0);
+        }
+        Assert.assertEquals(data.size(), consumed.get());
+
+        byte[] expected = TestExcelNativeGenerator.mapper(ExcelEngine.NATIVE).writeValueAsBytes(data);
+        Assert.assertEquals(TestExcelNativeGenerator.read(ExcelEngine.USER_MODEL, expected),
+                TestExcelNativeGenerator.read(ExcelEngine.STREAMING, out.toByteArray()));
+    }
+
+    @Test
+    public void testWriteTo() throws Exception {
+        List<Map<String, Object>> data = TestExcelNativeGenerator.data(1000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // 模拟非阻塞通道：每次最多写入100字节，隔次写满
+        WritableByteChannel target = new WritableByteChannel() {
+            int calls;
+
+            @Override
+            public int write(ByteBuffer src) {
+                if (calls++ % 2 == 1) {
+                    return 0;
+                }
+                int n = Integer.min(100, src.remaining());
+                byte[] bytes = new byte[n];
+                src.get(bytes);
+                out.write(bytes, 0, n);
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        int attempts = 0;
+        try (ExcelExportChannel channel = TestExcelNativeGenerator.mapper(ExcelEngine.NATIVE)
+                .exportChannel(data.iterator(), Map.class)) {
+            while (!channel.writeTo(target)) {
+                attempts++;
+            }
+        }
+        Assert.assertTrue(attempts > 0);
+
+        byte[] expected = TestExcelNativeGenerator.mapper(ExcelEngine.NATIVE).writeValueAsBytes(data);
+        Assert.assertEquals(TestExcelNativeGenerator.read(ExcelEngine.USER_MODEL, expected),
+                TestExcelNativeGenerator.read(ExcelEngine.USER_MODEL, out.toByteArray()));
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        List<Map<String, Object>> data = TestExcelNativeGenerator.data(5000);
+        AtomicInteger consumed = new AtomicInteger();
+        ExcelExportChannel channel = TestExcelNativeGenerator.mapper(ExcelEngine.NATIVE)
+                .exportChannel(counting(data, consumed), Map.class);
+        Assert.assertTrue(channel.read(ByteBuffer.allocate(1024)) > 0);
+        int generated = consumed.get();
+        // 取消：丢弃生成器，不再序列化剩余数据
+        channel.close();
+        Assert.assertFalse(channel.isOpen());
+        Assert.assertTrue(channel.generator.isClosed());
+        Assert.assertEquals(generated, consumed.get());
+        Assert.assertTrue(generated < data.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUserModel() throws Exception {
+        TestExcelNativeGenerator.mapper(ExcelEngine.USER_MODEL)
+                .exportChannel(TestExcelNativeGenerator.data(10).iterator(), Map.class);
+    }
+}
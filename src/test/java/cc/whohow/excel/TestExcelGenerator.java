@@ -1,10 +1,18 @@
 package cc.whohow.excel;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class TestExcelGenerator {
     @Test
@@ -16,4 +24,52 @@ public class TestExcelGenerator {
         System.out.println(data);
         mapper.writer(schema).writeValue(new File("test-generator.xlsx"), data);
     }
+
+    @Test
+    public void testColumnPlan() throws Exception {
+        // 字段顺序、个数逐行变化时回退到按名查找
+        List<Map<String, Object>> data = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            if (i % 3 == 0) {
+                row.put("b", "b" + i);
+                row.put("a", "a" + i);
+            } else {
+                row.put("a", "a" + i);
+                if (i % 2 == 0) {
+                    row.put("c", "c" + i);
+                }
+                row.put("b", "b" + i);
+            }
+            data.add(row);
+        }
+        ExcelMapper mapper = new ExcelMapper();
+        byte[] bytes = mapper.writeValueAsBytes(data);
+        List<Map<String, Object>> actual = mapper.readValue(bytes, new TypeReference<List<Map<String, Object>>>() {
+        });
+        Assert.assertEquals(data.size(), actual.size());
+        for (int i = 0; i < data.size(); i++) {
+            Assert.assertEquals(data.get(i).get("a"), actual.get(i).get("a"));
+            Assert.assertEquals(data.get(i).get("b"), actual.get(i).get("b"));
+            Assert.assertEquals(data.get(i).get("c"), actual.get(i).get("c"));
+        }
+    }
+
+    @Test
+    public void testWriteRawAppend() throws Exception {
+        // 新建行中同一列多次写入，追加而不是替换
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        try (ExcelGenerator generator = new ExcelFactory().createGenerator(stream)) {
+            generator.writeStartArray();
+            generator.writeStartObject();
+            generator.writeFieldName("text");
+            generator.writeRaw("a");
+            generator.writeRaw("bc", 0, 2);
+            generator.writeEndObject();
+            generator.writeEndArray();
+        }
+        try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(stream.toByteArray()))) {
+            Assert.assertEquals("abc", workbook.getSheetAt(0).getRow(1).getCell(0).getStringCellValue());
+        }
+    }
 }
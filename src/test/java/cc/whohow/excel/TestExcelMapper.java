@@ -1,6 +1,8 @@
 package cc.whohow.excel;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.File;
@@ -27,4 +29,19 @@ public class TestExcelMapper {
         System.out.println(excelMapper.readValue(new File("test2.xls"), new TypeReference<List<DataModel2>>() {
         }).toString());
     }
+
+    @Test
+    public void testSchemaCache() {
+        ExcelMapper excelMapper = new ExcelMapper();
+        ExcelSchema schema = excelMapper.schemaForReader(DataModel1.class);
+        // Schema不可变，缓存直接共享
+        Assert.assertSame(schema, excelMapper.schemaForReader(DataModel1.class));
+        Assert.assertNotSame(schema, schema.withSheet(0));
+        Assert.assertEquals("id", excelMapper.schemaForWriter(DataModel1.class).getKeys().get(0).getName());
+
+        // 配置变化后缓存失效
+        excelMapper.setPropertyNamingStrategy(PropertyNamingStrategy.UPPER_CAMEL_CASE);
+        Assert.assertEquals("Id", excelMapper.schemaForReader(DataModel1.class).getKeys().get(0).getName());
+        Assert.assertEquals("Id", excelMapper.copy().schemaForWriter(DataModel1.class).getKeys().get(0).getName());
+    }
 }
@@ -0,0 +1,28 @@
+package cc.whohow.excel;
+
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class TestExcelMergedRegions {
+    @Test
+    public void test() {
+        CellRangeAddress a = CellRangeAddress.valueOf("B2:D3");
+        CellRangeAddress b = CellRangeAddress.valueOf("F1:F10");
+        CellRangeAddress c = CellRangeAddress.valueOf("A3:A3");
+        ExcelMergedRegions mergedRegions = new ExcelMergedRegions(Arrays.asList(a, b, c));
+        Assert.assertSame(a, mergedRegions.getMergedRegion(1, 1));
+        Assert.assertSame(a, mergedRegions.getMergedRegion(2, 3));
+        Assert.assertSame(b, mergedRegions.getMergedRegion(9, 5));
+        Assert.assertSame(c, mergedRegions.getMergedRegion(2, 0));
+        Assert.assertNull(mergedRegions.getMergedRegion(2, 4));
+        Assert.assertNull(mergedRegions.getMergedRegion(0, 0));
+        Assert.assertNull(mergedRegions.getMergedRegion(10, 5));
+        Assert.assertEquals(0, mergedRegions.nextRow(0));
+        Assert.assertEquals(9, mergedRegions.nextRow(9));
+        Assert.assertEquals(-1, mergedRegions.nextRow(10));
+        Assert.assertEquals(3, mergedRegions.getMergedRegions(2).length);
+    }
+}
@@ -0,0 +1,144 @@
+package cc.whohow.excel;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellType;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.ZipEntry;
+
+public class TestExcelNativeGenerator {
+    static List<Map<String, Object>> data(int rows) {
+        List<Map<String, Object>> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            if (i % 5 != 1) {
+                row.put("name", i % 7 == 0 ? " <a & \"b\"> " : "name" + i);
+            }
+            row.put("id", i);
+            row.put("score", i / 4.0);
+            row.put("flag", i % 2 == 0);
+            data.add(row);
+        }
+        return data;
+    }
+
+    static ExcelMapper mapper(ExcelEngine writeEngine) {
+        return new ExcelMapper(new ExcelFactory().setWriteEngine(writeEngine));
+    }
+
+    static List<Map<String, Object>> read(ExcelEngine readEngine, byte[] data) throws Exception {
+        ExcelMapper mapper = new ExcelMapper(new ExcelFactory().setReadEngine(readEngine));
+        return mapper.readValue(data, new TypeReference<List<Map<String, Object>>>() {
+        });
+    }
+
+    @Test
+    public void test() throws Exception {
+        List<Map<String, Object>> data = data(1000);
+        byte[] bytes = mapper(ExcelEngine.NATIVE).writeValueAsBytes(data);
+
+        try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(bytes))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            Assert.assertEquals("name", sheet.getRow(0).getCell(0).getStringCellValue());
+            Assert.assertEquals("flag", sheet.getRow(0).getCell(3).getStringCellValue());
+            Assert.assertEquals(" <a & \"b\"> ", sheet.getRow(8).getCell(0).getStringCellValue());
+            Assert.assertEquals(0.25, sheet.getRow(2).getCell(2).getNumericCellValue(), 0);
+            Assert.assertTrue(sheet.getRow(1).getCell(3).getBooleanCellValue());
+        }
+
+        List<Map<String, Object>> expected = read(ExcelEngine.USER_MODEL, mapper(ExcelEngine.USER_MODEL).writeValueAsBytes(data));
+        Assert.assertEquals(1000, expected.size());
+        Assert.assertEquals(expected, read(ExcelEngine.USER_MODEL, bytes));
+        Assert.assertEquals(expected, read(ExcelEngine.STREAMING, bytes));
+    }
+
+    @Test
+    public void testBean() throws Exception {
+        List<DataModel2> data = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            DataModel2 bean = new DataModel2();
+            bean.setType("type" + i % 3);
+            bean.setStem("stem" + i);
+            data.add(bean);
+        }
+        byte[] bytes = mapper(ExcelEngine.NATIVE).writeValueAsBytes(data);
+
+        List<Map<String, Object>> expected = read(ExcelEngine.USER_MODEL, mapper(ExcelEngine.USER_MODEL).writeValueAsBytes(data));
+        Assert.assertEquals(100, expected.size());
+        Assert.assertEquals(expected, read(ExcelEngine.USER_MODEL, bytes));
+    }
+
+    @Test
+    public void testControlCharacter() throws Exception {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("text", "a\u0001b");
+        byte[] bytes = mapper(ExcelEngine.NATIVE).writeValueAsBytes(Collections.singletonList(data));
+        try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(bytes))) {
+            Assert.assertEquals("a\u0001b", workbook.getSheetAt(0).getRow(1).getCell(0).getStringCellValue());
+        }
+    }
+
+    @Test
+    public void testDataFormat() throws Exception {
+        ExcelSchema schema = new ExcelSchema()
+                .withDataFormat(CellType.NUMERIC, "0.000")
+                .withDataFormat(CellType.STRING, "@");
+        byte[] bytes = mapper(ExcelEngine.NATIVE).writer(schema).writeValueAsBytes(data(10));
+        try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(bytes))) {
+            // 默认样式 + 数值格式（自定义） + 文本格式（内置）
+            Assert.assertEquals(3, workbook.getNumCellStyles());
+            Sheet sheet = workbook.getSheetAt(0);
+            Assert.assertEquals(0, sheet.getRow(0).getCell(0).getCellStyle().getIndex());
+            Assert.assertEquals("@", sheet.getRow(3).getCell(0).getCellStyle().getDataFormatString());
+            Assert.assertEquals("0.000", sheet.getRow(3).getCell(2).getCellStyle().getDataFormatString());
+            Assert.assertEquals(0, sheet.getRow(3).getCell(3).getCellStyle().getIndex());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testExcel97() throws Exception {
+        mapper(ExcelEngine.NATIVE).writer(new ExcelSchema().withVersion(SpreadsheetVersion.EXCEL97))
+                .writeValueAsBytes(data(10));
+    }
+
+    @Test
+    public void testAutoCloseTarget() throws Exception {
+        for (boolean autoClose : new boolean[]{true, false}) {
+            AtomicBoolean closed = new AtomicBoolean();
+            ByteArrayOutputStream out = new ByteArrayOutputStream() {
+                @Override
+                public void close() {
+                    closed.set(true);
+                }
+            };
+            ExcelNativeGenerator generator = (ExcelNativeGenerator) mapper(ExcelEngine.NATIVE)
+                    .getFactory().createGenerator(out);
+            generator.configure(JsonGenerator.Feature.AUTO_CLOSE_TARGET, autoClose);
+            mapper(ExcelEngine.NATIVE).writeValue(generator, data(10));
+            generator.close();
+            Assert.assertEquals(autoClose, closed.get());
+            // zip已关闭，Deflater已释放
+            try {
+                generator.zip.putNextEntry(new ZipEntry("closed"));
+                Assert.fail();
+            } catch (IOException ignore) {
+            }
+            Assert.assertEquals(10, read(ExcelEngine.STREAMING, out.toByteArray()).size());
+        }
+    }
+}
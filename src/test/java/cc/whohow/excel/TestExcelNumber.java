@@ -0,0 +1,142 @@
+package cc.whohow.excel;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestExcelNumber {
+    public static class Item {
+        public int id;
+        public long serial;
+        public BigDecimal amount;
+    }
+
+    static byte[] data() throws Exception {
+        List<Map<String, Object>> data = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", i);
+            row.put("serial", 1234567890123L + i);
+            row.put("amount", 0.1 + i);
+            data.add(row);
+        }
+        return new ExcelMapper().writeValueAsBytes(data);
+    }
+
+    static ExcelMapper mapper(ExcelEngine readEngine) {
+        return new ExcelMapper(new ExcelFactory().setReadEngine(readEngine));
+    }
+
+    @Test
+    public void testToken() throws Exception {
+        byte[] bytes = data();
+        for (ExcelEngine engine : new ExcelEngine[]{ExcelEngine.USER_MODEL, ExcelEngine.STREAMING}) {
+            try (JsonParser parser = mapper(engine).getFactory().createParser(bytes)) {
+                Assert.assertEquals(JsonToken.START_ARRAY, parser.nextToken());
+                Assert.assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+                Assert.assertEquals("id", parser.nextFieldName());
+                Assert.assertEquals(JsonToken.VALUE_NUMBER_INT, parser.nextToken());
+                Assert.assertEquals(JsonParser.NumberType.INT, parser.getNumberType());
+                Assert.assertEquals(0, parser.getIntValue());
+                Assert.assertEquals("serial", parser.nextFieldName());
+                Assert.assertEquals(JsonToken.VALUE_NUMBER_INT, parser.nextToken());
+                Assert.assertEquals(JsonParser.NumberType.LONG, parser.getNumberType());
+                Assert.assertEquals(1234567890123L, parser.getLongValue());
+                Assert.assertEquals("amount", parser.nextFieldName());
+                Assert.assertEquals(JsonToken.VALUE_NUMBER_FLOAT, parser.nextToken());
+                Assert.assertEquals(JsonParser.NumberType.DOUBLE, parser.getNumberType());
+                Assert.assertEquals(new BigDecimal("0.1"), parser.getDecimalValue());
+            }
+        }
+    }
+
+    /**
+     * 打开解析器并跳过第一行，停在第二行的START_OBJECT
+     */
+    static JsonParser secondRow(ExcelEngine engine) throws Exception {
+        JsonParser parser = mapper(engine).getFactory().createParser(data());
+        Assert.assertEquals(JsonToken.START_ARRAY, parser.nextToken());
+        Assert.assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+        parser.skipChildren();
+        Assert.assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+        return parser;
+    }
+
+    @Test
+    public void testTextCharacters() throws Exception {
+        for (ExcelEngine engine : new ExcelEngine[]{ExcelEngine.USER_MODEL, ExcelEngine.STREAMING}) {
+            try (JsonParser parser = secondRow(engine)) {
+                Assert.assertEquals(JsonToken.FIELD_NAME, parser.nextToken());
+                Assert.assertEquals("id", new String(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+                // 复用字符缓冲区
+                Assert.assertEquals(JsonToken.VALUE_NUMBER_INT, parser.nextToken());
+                Assert.assertEquals(JsonToken.FIELD_NAME, parser.nextToken());
+                Assert.assertEquals("serial", new String(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength()));
+            }
+        }
+    }
+
+    @Test
+    public void testCurrentValue() throws Exception {
+        for (ExcelEngine engine : new ExcelEngine[]{ExcelEngine.USER_MODEL, ExcelEngine.STREAMING}) {
+            try (JsonParser parser = secondRow(engine)) {
+                Object bean = new Object();
+                parser.setCurrentValue(bean);
+                Assert.assertEquals(JsonToken.FIELD_NAME, parser.nextToken());
+                // 当前值为databind设置的对象，单元格值通过getCurrentCellValue读取
+                Assert.assertSame(bean, parser.getCurrentValue());
+                Assert.assertEquals(1, ((ExcelParser) parser).getCurrentCellValue());
+                Assert.assertEquals(JsonToken.VALUE_NUMBER_INT, parser.nextToken());
+                Assert.assertSame(bean, parser.getCurrentValue());
+                Assert.assertEquals("serial", parser.nextFieldName());
+                Assert.assertEquals(1234567890124L, parser.nextLongValue(0));
+                Assert.assertEquals("amount", parser.nextFieldName());
+                Assert.assertEquals(1.1, ((ExcelParser) parser).getCurrentCellValue());
+            }
+        }
+    }
+
+    @Test
+    public void testLocation() throws Exception {
+        for (ExcelEngine engine : new ExcelEngine[]{ExcelEngine.USER_MODEL, ExcelEngine.STREAMING}) {
+            try (JsonParser parser = secondRow(engine)) {
+                Assert.assertEquals("id", parser.nextFieldName());
+                Assert.assertEquals(2, parser.getTokenLocation().getLineNr());
+                Assert.assertEquals(0, parser.getTokenLocation().getColumnNr());
+                parser.nextToken();
+                Assert.assertEquals("serial", parser.nextFieldName());
+                parser.nextToken();
+                Assert.assertEquals("amount", parser.nextFieldName());
+                Assert.assertEquals(2, parser.getTokenLocation().getColumnNr());
+                Assert.assertEquals(JsonToken.VALUE_NUMBER_FLOAT, parser.nextToken());
+                Assert.assertEquals(JsonToken.END_OBJECT, parser.nextToken());
+            }
+        }
+    }
+
+    @Test
+    public void testBind() throws Exception {
+        byte[] bytes = data();
+        for (ExcelEngine engine : new ExcelEngine[]{ExcelEngine.USER_MODEL, ExcelEngine.STREAMING}) {
+            List<Map<String, Object>> maps = mapper(engine).readValue(bytes, new TypeReference<List<Map<String, Object>>>() {
+            });
+            Assert.assertEquals(2, maps.get(2).get("id"));
+            Assert.assertEquals(1234567890125L, maps.get(2).get("serial"));
+            Assert.assertEquals(2.1, maps.get(2).get("amount"));
+
+            List<Item> items = mapper(engine).readValue(bytes, new TypeReference<List<Item>>() {
+            });
+            Assert.assertEquals(1, items.get(1).id);
+            Assert.assertEquals(1234567890124L, items.get(1).serial);
+            Assert.assertEquals(new BigDecimal("1.1"), items.get(1).amount);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package cc.whohow.excel;
+
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestExcelOccupancy {
+    @Test
+    public void test() {
+        Excel excel = new Excel(SpreadsheetVersion.EXCEL2007);
+        excel.createCell(3, 2).setCellValue("a");
+        excel.createCell(3, 9).setCellValue("");
+        excel.createCell(5, 7).setCellValue(1);
+        excel.createCell(8, 4).setCellValue("merged");
+        excel.getSheet().addMergedRegion(CellRangeAddress.valueOf("E9:G11"));
+        excel = new Excel(excel.getSheet());
+
+        Assert.assertEquals("C4:H9", excel.getAndTrimSheetRangeAddress().formatAsString());
+        Assert.assertEquals("E6:H9", excel.trim(CellRangeAddress.valueOf("D5:Z20")).formatAsString());
+        Assert.assertEquals("A1", excel.trim(CellRangeAddress.valueOf("A1:B2")).formatAsString());
+
+        ExcelOccupancy occupancy = excel.getOccupancy(excel.getSheetRangeAddress());
+        Assert.assertTrue(occupancy.isEmpty(3, 3, 100));
+        Assert.assertFalse(occupancy.isEmpty(8, 6, 6));
+        Assert.assertEquals(2, occupancy.getFirstColumn(3));
+        Assert.assertEquals(-1, occupancy.getLastColumn(4));
+    }
+}
@@ -1,9 +1,15 @@
 package cc.whohow.excel;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.util.List;
 
 public class TestExcelParser {
     @Test
@@ -19,4 +25,28 @@ public class TestExcelParser {
             }
         }
     }
+
+    @Test
+    public void testSparse() throws Exception {
+        // 稀疏宽表：少量单元格分布在大范围内，含合并单元格
+        Excel excel = new Excel(SpreadsheetVersion.EXCEL2007);
+        excel.createCell(0, 0).setCellValue("a");
+        excel.createCell(0, 5000).setCellValue("b");
+        excel.createCell(10, 0).setCellValue(1);
+        excel.createCell(10, 5000).setCellValue(true);
+        excel.createCell(5000, 2500).setCellValue("x");
+        excel.createCell(6000, 10).setCellValue("merged");
+        excel.getSheet().addMergedRegion(CellRangeAddress.valueOf("K6001:L6003"));
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        excel.getWorkbook().write(buffer);
+        byte[] data = buffer.toByteArray();
+
+        JsonParser dense = new ExcelFactory().createParser(data);
+        dense.setSchema(new ExcelSchema().withHeader("A1:GJI1").withSparse(false));
+        JsonParser sparse = new ExcelFactory().createParser(data);
+        sparse.setSchema(new ExcelSchema().withHeader("A1:GJI1"));
+        List<String> expected = TestExcelStreamingParser.tokens(dense);
+        Assert.assertEquals(expected, TestExcelStreamingParser.tokens(sparse));
+        Assert.assertEquals(3, expected.stream().filter("START_OBJECT:{"::equals).count());
+    }
 }
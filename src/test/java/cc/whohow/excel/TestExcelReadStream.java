@@ -0,0 +1,70 @@
+package cc.whohow.excel;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TestExcelReadStream {
+    public static class Item {
+        static final AtomicInteger CREATED = new AtomicInteger();
+
+        public int id;
+        public String name;
+
+        public Item() {
+            CREATED.incrementAndGet();
+        }
+    }
+
+    static byte[] data(int rows) throws Exception {
+        List<Item> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Item item = new Item();
+            item.id = i;
+            item.name = "name" + i;
+            data.add(item);
+        }
+        return new ExcelMapper().writeValueAsBytes(data);
+    }
+
+    static ExcelMapper mapper(ExcelEngine readEngine) {
+        return new ExcelMapper(new ExcelFactory().setReadEngine(readEngine));
+    }
+
+    @Test
+    public void test() throws Exception {
+        byte[] bytes = data(500);
+        for (ExcelEngine engine : new ExcelEngine[]{ExcelEngine.USER_MODEL, ExcelEngine.STREAMING}) {
+            List<Map<String, Object>> expected = mapper(engine).readValue(bytes, new TypeReference<List<Map<String, Object>>>() {
+            });
+            List<Map> actual;
+            try (Stream<Map> stream = mapper(engine).readValuesAsStream(bytes, Map.class)) {
+                actual = stream.collect(Collectors.toList());
+            }
+            Assert.assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testLazy() throws Exception {
+        byte[] bytes = data(500);
+        for (ExcelEngine engine : new ExcelEngine[]{ExcelEngine.USER_MODEL, ExcelEngine.STREAMING}) {
+            Item.CREATED.set(0);
+            try (Stream<Item> stream = mapper(engine).readValuesAsStream(bytes, Item.class)) {
+                Iterator<Item> iterator = stream.iterator();
+                Assert.assertEquals(0, iterator.next().id);
+                Assert.assertEquals("name1", iterator.next().name);
+                // 按需解析，未消费的行不会绑定
+                Assert.assertTrue(Item.CREATED.get() <= 3);
+            }
+        }
+    }
+}
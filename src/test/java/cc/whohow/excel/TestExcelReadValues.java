@@ -0,0 +1,58 @@
+package cc.whohow.excel;
+
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+
+public class TestExcelReadValues {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void test() throws Exception {
+        File file = folder.newFile("test.xlsx");
+        Files.write(file.toPath(), TestExcelReadStream.data(1000));
+        for (ExcelEngine engine : new ExcelEngine[]{ExcelEngine.USER_MODEL, ExcelEngine.STREAMING}) {
+            try (MappingIterator<TestExcelReadStream.Item> iterator = TestExcelReadStream.mapper(engine)
+                    .readerFor(TestExcelReadStream.Item.class)
+                    .readValues(file)) {
+                int rows = 0;
+                while (iterator.hasNextValue()) {
+                    TestExcelReadStream.Item item = iterator.nextValue();
+                    Assert.assertEquals(rows, item.id);
+                    Assert.assertEquals("name" + rows, item.name);
+                    rows++;
+                }
+                Assert.assertEquals(1000, rows);
+            }
+        }
+    }
+
+    @Test
+    public void testNoRetention() throws Exception {
+        byte[] bytes = TestExcelReadStream.data(1000);
+        ExcelMapper mapper = TestExcelReadStream.mapper(ExcelEngine.STREAMING);
+        ObjectReader reader = mapper.readerFor(TestExcelReadStream.Item.class);
+        try (ExcelStreamingParser parser = (ExcelStreamingParser) mapper.getFactory().createParser(bytes)) {
+            Assert.assertEquals(JsonToken.START_ARRAY, parser.nextToken());
+            // 布局确定后预读Sheet中的行已释放，预读行逐行出队
+            Assert.assertEquals(0, parser.excel.getSheet().getPhysicalNumberOfRows());
+            for (int i = 0; i < parser.getProbeRows() + 10; i++) {
+                Assert.assertEquals(JsonToken.START_OBJECT, parser.nextToken());
+                TestExcelReadStream.Item item = reader.readValue(parser);
+                Assert.assertEquals(i, item.id);
+                Assert.assertTrue(parser.probe.size() <= Integer.max(0, parser.getProbeRows() - 1 - i));
+            }
+            // 预读行读完后只保留当前行
+            Assert.assertTrue(parser.probe.isEmpty());
+            Assert.assertEquals(0, parser.excel.getSheet().getPhysicalNumberOfRows());
+        }
+    }
+}
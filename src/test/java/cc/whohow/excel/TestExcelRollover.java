@@ -0,0 +1,106 @@
+package cc.whohow.excel;
+
+import com.fasterxml.jackson.core.JsonGenerationException;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestExcelRollover {
+    static List<Map<String, Object>> data(int rows) {
+        List<Map<String, Object>> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", String.valueOf(i));
+            if (i > 20) {
+                // 切换Sheet后出现的动态Key
+                row.put("late", "late" + i);
+            }
+            data.add(row);
+        }
+        return data;
+    }
+
+    static void test(ExcelEngine engine) throws Exception {
+        ExcelMapper mapper = new ExcelMapper(new ExcelFactory().setWriteEngine(engine));
+        ExcelSchema schema = new ExcelSchema()
+                .withSheet("Data")
+                .withRollover(true)
+                .withMaxRowsPerSheet(10);
+        byte[] bytes = mapper.writer(schema).writeValueAsBytes(data(25));
+
+        try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(bytes))) {
+            Assert.assertEquals(3, workbook.getNumberOfSheets());
+            Assert.assertEquals("Data", workbook.getSheetName(0));
+            Assert.assertEquals("Data (2)", workbook.getSheetName(1));
+            Assert.assertEquals("Data (3)", workbook.getSheetName(2));
+            int id = 0;
+            for (int i = 0; i < 3; i++) {
+                Sheet sheet = workbook.getSheetAt(i);
+                Assert.assertEquals("id", sheet.getRow(0).getCell(0).getStringCellValue());
+                for (int r = 1; r <= sheet.getLastRowNum(); r++) {
+                    Assert.assertEquals(String.valueOf(id++), sheet.getRow(r).getCell(0).getStringCellValue());
+                }
+            }
+            Assert.assertEquals(25, id);
+            Assert.assertEquals(9, workbook.getSheetAt(1).getLastRowNum());
+            if (engine != ExcelEngine.NATIVE) {
+                // NATIVE在Header写出后出现的Key没有Header
+                Assert.assertEquals("late", workbook.getSheetAt(2).getRow(0).getCell(1).getStringCellValue());
+            }
+        }
+    }
+
+    @Test
+    public void testUserModel() throws Exception {
+        test(ExcelEngine.USER_MODEL);
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        test(ExcelEngine.STREAMING);
+    }
+
+    @Test
+    public void testNative() throws Exception {
+        test(ExcelEngine.NATIVE);
+    }
+
+    @Test
+    public void testLongSheetName() throws Exception {
+        String name = "abcdefghijklmnopqrstuvwxyz01234";
+        for (ExcelEngine engine : ExcelEngine.values()) {
+            ExcelSchema schema = new ExcelSchema()
+                    .withSheet(name)
+                    .withRollover(true)
+                    .withMaxRowsPerSheet(10);
+            byte[] bytes = new ExcelMapper(new ExcelFactory().setWriteEngine(engine))
+                    .writer(schema).writeValueAsBytes(data(15));
+            try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(bytes))) {
+                Assert.assertEquals(name, workbook.getSheetName(0));
+                Assert.assertEquals("abcdefghijklmnopqrstuvwxyz0 (2)", workbook.getSheetName(1));
+            }
+        }
+    }
+
+    @Test
+    public void testDefaultSheetName() throws Exception {
+        byte[] bytes = new ExcelMapper().writer(new ExcelSchema().withRollover(true).withMaxRowsPerSheet(10))
+                .writeValueAsBytes(data(15));
+        try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(bytes))) {
+            Assert.assertEquals("Sheet0 (2)", workbook.getSheetName(1));
+        }
+    }
+
+    @Test(expected = JsonGenerationException.class)
+    public void testRowLimit() throws Exception {
+        new ExcelMapper().writer(new ExcelSchema().withMaxRowsPerSheet(10)).writeValueAsBytes(data(25));
+    }
+}
@@ -1,5 +1,7 @@
 package cc.whohow.excel;
 
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.junit.Assert;
 import org.junit.Test;
 
 public class TestExcelSchema {
@@ -9,4 +11,38 @@ public class TestExcelSchema {
         System.out.println(objectMapper.schemaForReader(DataModel1.class).getKeys());
         System.out.println(objectMapper.schemaForWriter(DataModel2.class).getKeys());
     }
+
+    @Test
+    public void testDetect() {
+        Excel excel = new Excel(SpreadsheetVersion.EXCEL2007);
+        excel.createCell(0, 1).setCellValue("ID");
+        excel.createCell(0, 2).setCellValue("Name");
+        excel.createCell(1, 1).setCellValue(1);
+        excel.createCell(1, 2).setCellValue("a");
+        ExcelSchema schema = new ExcelSchema()
+                .addKey("name", "Name")
+                .addKey("id", "ID");
+
+        // 推测结果保存在ResolvedLayout中，不修改Schema及其Keys
+        ResolvedLayout layout = schema.detect(excel);
+        Assert.assertEquals("B1:C1", layout.getHeaderRangeAddress().formatAsString());
+        Assert.assertEquals("B2:C2", layout.getBodyRangeAddress().formatAsString());
+        Assert.assertEquals(2, layout.getKeys().get(0).getIndex());
+        Assert.assertEquals(1, layout.getKeys().get(1).getIndex());
+        Assert.assertNull(schema.getHeaderRangeAddress());
+        Assert.assertEquals(-1, schema.getKeys().get(0).getIndex());
+        Assert.assertEquals(-1, schema.getKeys().get(1).getIndex());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testImmutable() {
+        ExcelSchema schema = new ExcelSchema().addKey("id");
+        // withXXX不修改原实例
+        Assert.assertEquals("A1:A1", schema.withHeader("A1:A1").getHeaderRangeAddress());
+        Assert.assertNull(schema.getHeaderRangeAddress());
+        // 兼容旧API：copy复制Keys，修改副本的Key不影响原Schema
+        schema.copy().getKeys().get(0).setIndex(3);
+        Assert.assertEquals(-1, schema.getKeys().get(0).getIndex());
+    }
 }
@@ -0,0 +1,125 @@
+package cc.whohow.excel;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+public class TestExcelShardedWriter {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    static Stream<DataModel2> data(int rows) {
+        return IntStream.range(0, rows).mapToObj(i -> {
+            DataModel2 bean = new DataModel2();
+            bean.setType("type" + i % 3);
+            bean.setStem("stem" + i);
+            return bean;
+        });
+    }
+
+    @Test
+    public void test() throws Exception {
+        ExcelMapper mapper = new ExcelMapper(new ExcelFactory().setWriteEngine(ExcelEngine.NATIVE));
+        List<File> files = mapper.shardedWriterFor(DataModel2.class)
+                .withRowsPerShard(10)
+                .withParallelism(2)
+                .withFileNaming(folder.getRoot(), "data-", ".xlsx")
+                .write(data(25));
+
+        Assert.assertEquals(3, files.size());
+        int stem = 0;
+        for (int i = 0; i < files.size(); i++) {
+            Assert.assertEquals("data-" + (i + 1) + ".xlsx", files.get(i).getName());
+            List<DataModel2> rows = mapper.readValue(files.get(i), new TypeReference<List<DataModel2>>() {
+            });
+            Assert.assertEquals(i < 2 ? 10 : 5, rows.size());
+            for (DataModel2 row : rows) {
+                Assert.assertEquals("stem" + stem++, row.getStem());
+            }
+        }
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        List<File> files = new ExcelMapper().shardedWriterFor(DataModel2.class)
+                .withFileNaming(folder.getRoot(), "empty-", ".xlsx")
+                .write(data(0));
+        Assert.assertTrue(files.isEmpty());
+    }
+
+    public static class Failing {
+        public String getValue() {
+            throw new IllegalStateException("failing");
+        }
+    }
+
+    @Test
+    public void testFailureDeletesFiles() throws Exception {
+        Stream<Map<String, Object>> data = IntStream.range(0, 35).mapToObj(i -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", i);
+            // 第3个分片中失败
+            row.put("value", i == 25 ? new Failing() : "value" + i);
+            return row;
+        });
+        try {
+            new ExcelMapper().shardedWriterFor(Map.class)
+                    .withRowsPerShard(10)
+                    .withParallelism(2)
+                    .withFileNaming(folder.getRoot(), "fail-", ".xlsx")
+                    .write(data);
+            Assert.fail();
+        } catch (IOException ignore) {
+        }
+        Assert.assertArrayEquals(new String[0], folder.getRoot().list());
+    }
+
+    @Test
+    public void testConcurrentShards() throws Exception {
+        // 两个分片须同时生成才能通过屏障，否则超时失败
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        ExcelMapper mapper = new ExcelMapper(new ExcelFactory().setWriteEngine(ExcelEngine.NATIVE));
+        ExcelShardedWriter writer = new ExcelShardedWriter(mapper.writerFor(DataModel2.class)) {
+            @Override
+            protected File write(File file, List<Object> rows) throws IOException {
+                peak.accumulateAndGet(active.incrementAndGet(), Integer::max);
+                try {
+                    barrier.await(10, TimeUnit.SECONDS);
+                    return super.write(file, rows);
+                } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                    throw new IOException(e);
+                } finally {
+                    active.decrementAndGet();
+                }
+            }
+        };
+        List<File> files = writer.withRowsPerShard(10)
+                .withParallelism(2)
+                .withFileNaming(folder.getRoot(), "concurrent-", ".xlsx")
+                .write(data(20));
+        Assert.assertEquals(2, files.size());
+        Assert.assertEquals(2, peak.get());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParallelism() {
+        new ExcelMapper().shardedWriterFor(DataModel2.class).withParallelism(0);
+    }
+}
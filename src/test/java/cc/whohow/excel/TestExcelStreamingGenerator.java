@@ -0,0 +1,83 @@
+package cc.whohow.excel;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestExcelStreamingGenerator {
+    static List<Map<String, Object>> data(int rows) {
+        List<Map<String, Object>> data = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("id", String.valueOf(i));
+            row.put("name", "name" + i);
+            if (i % 3 == 0) {
+                row.put("flag", String.valueOf(i % 2 == 0));
+            }
+            data.add(row);
+        }
+        return data;
+    }
+
+    static ExcelMapper mapper(ExcelEngine writeEngine) {
+        return new ExcelMapper(new ExcelFactory()
+                .setWriteEngine(writeEngine)
+                .setWriteRowWindow(10));
+    }
+
+    @Test
+    public void test() throws Exception {
+        TypeReference<List<Map<String, Object>>> type = new TypeReference<List<Map<String, Object>>>() {
+        };
+        List<Map<String, Object>> data = data(1000);
+
+        byte[] streaming = mapper(ExcelEngine.STREAMING).writeValueAsBytes(data);
+        byte[] userModel = mapper(ExcelEngine.USER_MODEL).writeValueAsBytes(data);
+
+        try (Workbook workbook = WorkbookFactory.create(new ByteArrayInputStream(streaming))) {
+            Sheet sheet = workbook.getSheetAt(0);
+            Assert.assertEquals("id", sheet.getRow(0).getCell(0).getStringCellValue());
+            Assert.assertEquals("name", sheet.getRow(0).getCell(1).getStringCellValue());
+            // 动态Key，写入数据后补写Header
+            Assert.assertEquals("flag", sheet.getRow(0).getCell(2).getStringCellValue());
+            Assert.assertEquals(1000, sheet.getLastRowNum());
+        }
+
+        ExcelMapper reader = new ExcelMapper();
+        List<Map<String, Object>> expected = reader.readValue(userModel, type);
+        List<Map<String, Object>> actual = reader.readValue(streaming, type);
+        Assert.assertEquals(1000, actual.size());
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testBean() throws Exception {
+        List<DataModel2> data = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            DataModel2 bean = new DataModel2();
+            bean.setType("type" + i % 3);
+            bean.setStem("stem" + i);
+            bean.setFlag(i % 2 == 0 ? "Y" : null);
+            data.add(bean);
+        }
+        byte[] streaming = mapper(ExcelEngine.STREAMING).writeValueAsBytes(data);
+        byte[] userModel = mapper(ExcelEngine.USER_MODEL).writeValueAsBytes(data);
+
+        ExcelMapper reader = new ExcelMapper();
+        TypeReference<List<Map<String, Object>>> type = new TypeReference<List<Map<String, Object>>>() {
+        };
+        List<Map<String, Object>> expected = reader.readValue(userModel, type);
+        List<Map<String, Object>> actual = reader.readValue(streaming, type);
+        Assert.assertEquals(200, actual.size());
+        Assert.assertEquals(expected, actual);
+    }
+}
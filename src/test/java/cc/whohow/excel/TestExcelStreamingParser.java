@@ -0,0 +1,240 @@
+package cc.whohow.excel;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class TestExcelStreamingParser {
+    static byte[] createWorkbook(SpreadsheetVersion version, int rows) throws Exception {
+        Excel excel = new Excel(version);
+        Workbook workbook = excel.getWorkbook();
+        CellStyle dateStyle = workbook.createCellStyle();
+        dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd"));
+
+        Row header = excel.createRow(1);
+        header.createCell(1).setCellValue("id");
+        header.createCell(2).setCellValue("name");
+        header.createCell(3).setCellValue("date");
+        header.createCell(4).setCellValue("flag");
+        header.createCell(5).setCellValue("sum");
+        for (int i = 0; i < rows; i++) {
+            if (i % 7 == 3) {
+                continue;
+            }
+            Row row = excel.createRow(i + 2);
+            row.createCell(1).setCellValue(i);
+            row.createCell(2).setCellValue("name" + i);
+            row.createCell(3).setCellValue(new Date(1500000000000L + i * 86400000L));
+            row.getCell(3).setCellStyle(dateStyle);
+            row.createCell(4).setCellValue(i % 2 == 0);
+            row.createCell(5).setCellFormula("B" + (i + 3) + "*2");
+        }
+        workbook.getCreationHelper().createFormulaEvaluator().evaluateAll();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        workbook.write(buffer);
+        return buffer.toByteArray();
+    }
+
+    static List<String> tokens(JsonParser parser) throws Exception {
+        List<String> tokens = new ArrayList<>();
+        try {
+            while (true) {
+                JsonToken token = parser.nextToken();
+                if (token == null) {
+                    break;
+                }
+                tokens.add(token + ":" + parser.getText());
+            }
+        } finally {
+            parser.close();
+        }
+        return tokens;
+    }
+
+    @Test
+    public void test() throws Exception {
+        byte[] data = createWorkbook(SpreadsheetVersion.EXCEL2007, 500);
+        List<String> expected = tokens(new ExcelFactory().createParser(data));
+        List<String> actual = tokens(new ExcelFactory().setReadEngine(ExcelEngine.STREAMING).createParser(data));
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testMapper() throws Exception {
+        byte[] data = createWorkbook(SpreadsheetVersion.EXCEL2007, 500);
+        TypeReference<List<Map<String, String>>> type = new TypeReference<List<Map<String, String>>>() {
+        };
+        List<Map<String, String>> expected = new ExcelMapper().readValue(data, type);
+        List<Map<String, String>> actual = new ExcelMapper(new ExcelFactory().setReadEngine(ExcelEngine.STREAMING)).readValue(data, type);
+        Assert.assertEquals(expected, actual);
+        Assert.assertEquals(429, actual.size());
+    }
+
+    @Test
+    public void testHSSF() throws Exception {
+        byte[] data = createWorkbook(SpreadsheetVersion.EXCEL97, 500);
+        List<String> expected = tokens(new ExcelFactory().createParser(data));
+        List<String> actual = tokens(new ExcelFactory().setReadEngine(ExcelEngine.STREAMING).createParser(data));
+        Assert.assertEquals(expected, actual);
+    }
+
+    @Test
+    public void testWithoutStyles() throws Exception {
+        // 没有styles.xml，单元格仍引用样式
+        String[][] parts = {
+                {"[Content_Types].xml", "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">" +
+                        "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>" +
+                        "<Default Extension=\"xml\" ContentType=\"application/xml\"/>" +
+                        "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>" +
+                        "<Override PartName=\"/xl/worksheets/sheet1.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>" +
+                        "</Types>"},
+                {"_rels/.rels", "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                        "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>" +
+                        "</Relationships>"},
+                {"xl/_rels/workbook.xml.rels", "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                        "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet1.xml\"/>" +
+                        "</Relationships>"},
+                {"xl/workbook.xml", "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" " +
+                        "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">" +
+                        "<sheets><sheet name=\"Sheet1\" sheetId=\"1\" r:id=\"rId1\"/></sheets></workbook>"},
+                {"xl/worksheets/sheet1.xml", "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>" +
+                        "<row r=\"1\"><c r=\"A1\" t=\"inlineStr\"><is><t>id</t></is></c></row>" +
+                        "<row r=\"2\"><c r=\"A2\" s=\"1\"><v>42</v></c></row>" +
+                        "</sheetData></worksheet>"},
+        };
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(buffer)) {
+            for (String[] part : parts) {
+                zip.putNextEntry(new ZipEntry(part[0]));
+                zip.write(part[1].getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+        }
+        List<Map<String, Object>> rows = new ExcelMapper(new ExcelFactory().setReadEngine(ExcelEngine.STREAMING))
+                .readValue(buffer.toByteArray(), new TypeReference<List<Map<String, Object>>>() {
+                });
+        Assert.assertEquals(42, rows.get(0).get("id"));
+    }
+
+    @Test
+    public void testAutoEngine() throws Exception {
+        byte[] data = createWorkbook(SpreadsheetVersion.EXCEL2007, 500);
+        try (ExcelParser parser = new ExcelFactory().createParser(data)) {
+            Assert.assertEquals(ExcelEngine.USER_MODEL, parser.getEngine());
+        }
+        try (ExcelParser parser = new ExcelFactory().setXSSFStreamingThreshold(0).createParser(data)) {
+            Assert.assertEquals(ExcelEngine.STREAMING, parser.getEngine());
+        }
+        data = createWorkbook(SpreadsheetVersion.EXCEL97, 500);
+        try (ExcelParser parser = new ExcelFactory().setHSSFStreamingThreshold(0).createParser(data)) {
+            Assert.assertEquals(ExcelEngine.STREAMING, parser.getEngine());
+        }
+    }
+
+    @Test
+    public void testDetectInMemory() throws Exception {
+        byte[] data = createWorkbook(SpreadsheetVersion.EXCEL2007, 500);
+        File file = File.createTempFile("test-", ".xlsx");
+        try {
+            Files.write(file.toPath(), data);
+            ExcelFactory factory = new ExcelFactory();
+            long estimated = factory.estimateXSSFSize(file);
+            Assert.assertTrue(estimated > 0);
+            Assert.assertEquals(estimated, factory.estimateXSSFSize(data, 0, data.length));
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    @Test
+    public void testDetectTruncatedCentralDirectory() throws Exception {
+        byte[] data = createWorkbook(SpreadsheetVersion.EXCEL2007, 10);
+        int end = data.length - 22;
+        Assert.assertEquals(0x50, data[end] & 0xFF);
+        int directory = (data[end + 16] & 0xFF) | (data[end + 17] & 0xFF) << 8 |
+                (data[end + 18] & 0xFF) << 16 | (data[end + 19] & 0xFF) << 24;
+        ExcelFactory factory = new ExcelFactory();
+        Assert.assertTrue(factory.estimateXSSFSize(data, 0, data.length) > 0);
+
+        // 第一项中央目录头完整，文件名被截断
+        byte[] truncated = new byte[directory + 50 + 22];
+        System.arraycopy(data, 0, truncated, 0, directory + 50);
+        System.arraycopy(data, end, truncated, directory + 50, 22);
+        Assert.assertEquals(-1, factory.estimateXSSFSize(truncated, 0, truncated.length));
+        Assert.assertEquals(ExcelEngine.USER_MODEL, factory.detectReadEngine(truncated, 0, truncated.length));
+
+        // 文件名长度超出数据范围
+        byte[] corrupt = data.clone();
+        corrupt[directory + 28] = (byte) 0xFF;
+        corrupt[directory + 29] = (byte) 0xFF;
+        Assert.assertEquals(-1, factory.estimateXSSFSize(corrupt, 0, corrupt.length));
+
+        // 带偏移量时按offset、len界定范围
+        byte[] padded = new byte[data.length + 16];
+        System.arraycopy(truncated, 0, padded, 7, truncated.length);
+        Assert.assertEquals(-1, factory.estimateXSSFSize(padded, 7, truncated.length));
+    }
+
+    @Test
+    public void testCorruptInputDeletesTempFile() throws Exception {
+        byte[] data = createWorkbook(SpreadsheetVersion.EXCEL2007, 500);
+        // 保留ZIP文件头，截断中央目录
+        byte[] corrupt = Arrays.copyOf(data, 100);
+        File tempDir = new File(System.getProperty("java.io.tmpdir"), "poifiles");
+        int before = countTempFiles(tempDir);
+        try {
+            new ExcelFactory().createParser(new ByteArrayInputStream(corrupt)).close();
+            Assert.fail();
+        } catch (IOException ignore) {
+        }
+        Assert.assertEquals(before, countTempFiles(tempDir));
+    }
+
+    static int countTempFiles(File dir) {
+        String[] names = dir.list((d, name) -> name.startsWith("excel-"));
+        return names == null ? 0 : names.length;
+    }
+
+    @Test
+    public void testFile() throws Exception {
+        File file = File.createTempFile("test-", ".xlsx");
+        try {
+            Files.write(file.toPath(), createWorkbook(SpreadsheetVersion.EXCEL2007, 500));
+            List<String> expected = tokens(new ExcelFactory().createParser(file));
+            List<String> actual = tokens(new ExcelFactory().setReadEngine(ExcelEngine.STREAMING).createParser(file));
+            Assert.assertEquals(expected, actual);
+            Assert.assertTrue(file.exists());
+        } finally {
+            Files.delete(file.toPath());
+        }
+    }
+
+    @Test
+    public void testEvaluateFormula() throws Exception {
+        byte[] data = createWorkbook(SpreadsheetVersion.EXCEL2007, 500);
+        List<String> expected = tokens(new ExcelFactory().createParser(data));
+        JsonParser parser = new ExcelFactory().createParser(data);
+        parser.setSchema(new ExcelSchema().withEvaluateFormula(true));
+        Assert.assertEquals(expected, tokens(parser));
+    }
+}
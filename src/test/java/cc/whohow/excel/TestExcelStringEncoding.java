@@ -0,0 +1,66 @@
+package cc.whohow.excel;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.*;
+
+public class TestExcelStringEncoding {
+    static final int ROWS = 3000;
+
+    static List<Map<String, Object>> data() {
+        List<Map<String, Object>> data = new ArrayList<>(ROWS);
+        Random random = new Random(0);
+        for (int i = 0; i < ROWS; i++) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("type", "type" + i % 5);
+            row.put("uuid", new UUID(random.nextLong(), random.nextLong()).toString());
+            data.add(row);
+        }
+        return data;
+    }
+
+    static int write(ExcelEngine engine, ExcelStringEncoding stringEncoding) throws Exception {
+        List<Map<String, Object>> data = data();
+        ExcelMapper mapper = new ExcelMapper(new ExcelFactory().setWriteEngine(engine));
+        byte[] bytes = mapper.writer(new ExcelSchema().withStringEncoding(stringEncoding)).writeValueAsBytes(data);
+
+        TypeReference<List<Map<String, Object>>> type = new TypeReference<List<Map<String, Object>>>() {
+        };
+        List<Map<String, Object>> userModel = new ExcelMapper(new ExcelFactory().setReadEngine(ExcelEngine.USER_MODEL))
+                .readValue(bytes, type);
+        List<Map<String, Object>> streaming = new ExcelMapper(new ExcelFactory().setReadEngine(ExcelEngine.STREAMING))
+                .readValue(bytes, type);
+        Assert.assertEquals(data, userModel);
+        Assert.assertEquals(data, streaming);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(bytes))) {
+            return workbook.getSharedStringSource() == null ? 0 : workbook.getSharedStringSource().getUniqueCount();
+        }
+    }
+
+    @Test
+    public void testUserModel() throws Exception {
+        Assert.assertEquals(ROWS + 7, write(ExcelEngine.USER_MODEL, ExcelStringEncoding.AUTO));
+        // Header仍在共享字符串表中
+        Assert.assertEquals(2, write(ExcelEngine.USER_MODEL, ExcelStringEncoding.INLINE));
+        int adaptive = write(ExcelEngine.USER_MODEL, ExcelStringEncoding.ADAPTIVE);
+        Assert.assertTrue(adaptive > 7 && adaptive <= 1007);
+    }
+
+    @Test
+    public void testStreaming() throws Exception {
+        Assert.assertEquals(2, write(ExcelEngine.STREAMING, ExcelStringEncoding.AUTO));
+        Assert.assertEquals(ROWS + 7, write(ExcelEngine.STREAMING, ExcelStringEncoding.SHARED));
+    }
+
+    @Test
+    public void testNative() throws Exception {
+        Assert.assertEquals(0, write(ExcelEngine.NATIVE, ExcelStringEncoding.AUTO));
+        Assert.assertEquals(ROWS + 7, write(ExcelEngine.NATIVE, ExcelStringEncoding.SHARED));
+        int adaptive = write(ExcelEngine.NATIVE, ExcelStringEncoding.ADAPTIVE);
+        Assert.assertTrue(adaptive > 7 && adaptive <= 1007);
+    }
+}